@@ -0,0 +1,156 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+// === AssetBundle Class ===
+// All game assets packed into one file and memory-mapped once. Layout, big-endian:
+//   "FFAB" | version int | entry count int
+//   per entry: id length short | id UTF-8 bytes | data offset long | data length long
+//   asset data
+// Assets are looked up by id ("menu_select") and handed out as read-only slices of the mapping.
+class AssetBundle {
+    static final String DEFAULT_FILE = "assets.ffab";
+    static final int MAGIC = 0x46464142; // "FFAB"
+    static final int VERSION = 1;
+    private static final int ENTRY_BYTES = 18; // id length, offset and length, without the id
+
+    private final ByteBuffer mapped;
+    private final Map<String, long[]> index = new LinkedHashMap<>();
+
+    private AssetBundle(ByteBuffer mapped) throws IOException {
+        this.mapped = mapped;
+        ByteBuffer header = mapped.duplicate().order(ByteOrder.BIG_ENDIAN);
+        if (header.remaining() < 12 || header.getInt() != MAGIC) {
+            throw new IOException("Not an asset bundle");
+        }
+        int version = header.getInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported asset bundle version " + version);
+        }
+        int count = header.getInt();
+        if (count < 0 || count > header.remaining() / ENTRY_BYTES) {
+            throw new IOException("Corrupt asset bundle");
+        }
+        for (int i = 0; i < count; i++) {
+            if (header.remaining() < ENTRY_BYTES) throw new IOException("Corrupt asset bundle");
+            int idLength = header.getShort() & 0xffff;
+            if (header.remaining() < idLength + 16) throw new IOException("Corrupt asset bundle");
+            byte[] id = new byte[idLength];
+            header.get(id);
+            long offset = header.getLong();
+            long length = header.getLong();
+            if (offset < 0 || length < 0 || offset > mapped.capacity() - length) {
+                throw new IOException("Corrupt asset bundle entry " + i);
+            }
+            index.put(new String(id, StandardCharsets.UTF_8), new long[] { offset, length });
+        }
+    }
+
+    static AssetBundle open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            // The mapping stays valid after the channel is closed
+            return new AssetBundle(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        } catch (RuntimeException e) {
+            throw new IOException("Corrupt asset bundle", e);
+        }
+    }
+
+    // The default bundle next to the game, or null when the game runs from loose files
+    static AssetBundle openDefault() {
+        Path path = Paths.get(DEFAULT_FILE);
+        if (!Files.isRegularFile(path)) return null;
+        try {
+            return open(path);
+        } catch (IOException e) {
+            System.err.println("Error: Unable to read asset bundle: " + e.getMessage());
+            return null;
+        }
+    }
+
+    boolean contains(String id) {
+        return index.containsKey(id);
+    }
+
+    Set<String> ids() {
+        return Collections.unmodifiableSet(index.keySet());
+    }
+
+    // A zero-copy view of one asset, or null when the bundle does not have it
+    ByteBuffer get(String id) {
+        long[] entry = index.get(id);
+        if (entry == null) return null;
+        return mapped.duplicate()
+            .position((int) entry[0])
+            .limit((int) (entry[0] + entry[1]))
+            .slice()
+            .asReadOnlyBuffer();
+    }
+
+    InputStream openStream(String id) {
+        ByteBuffer buffer = get(id);
+        return buffer == null ? null : new ByteBufferInputStream(buffer);
+    }
+}
+
+// === ByteBufferInputStream Class ===
+// Lets Java Sound read straight out of a mapped slice. Supports mark/reset,
+// which AudioSystem needs to sniff the file type.
+class ByteBufferInputStream extends InputStream {
+    private final ByteBuffer buffer;
+
+    ByteBufferInputStream(ByteBuffer buffer) {
+        this.buffer = buffer;
+    }
+
+    @Override
+    public int read() {
+        return buffer.hasRemaining() ? buffer.get() & 0xff : -1;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) {
+        if (len == 0) return 0;
+        if (!buffer.hasRemaining()) return -1;
+        int count = Math.min(len, buffer.remaining());
+        buffer.get(b, off, count);
+        return count;
+    }
+
+    @Override
+    public long skip(long n) {
+        int count = (int) Math.max(0, Math.min(n, buffer.remaining()));
+        buffer.position(buffer.position() + count);
+        return count;
+    }
+
+    @Override
+    public int available() {
+        return buffer.remaining();
+    }
+
+    @Override
+    public boolean markSupported() {
+        return true;
+    }
+
+    @Override
+    public synchronized void mark(int readLimit) {
+        buffer.mark();
+    }
+
+    @Override
+    public synchronized void reset() {
+        buffer.reset();
+    }
+}
@@ -0,0 +1,73 @@
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+
+// === AssetBundleBuilder Class ===
+// Packs the loose asset files into the AssetBundle format. An asset's id is
+// its file name without the extension, so "victory.wav" becomes "victory".
+// Usage: java AssetBundleBuilder [output] [files...]
+//        with no files, every known game asset found next to the game is packed
+public class AssetBundleBuilder {
+    public static void main(String[] args) throws IOException {
+        Path output = Paths.get(args.length > 0 ? args[0] : AssetBundle.DEFAULT_FILE);
+        List<Path> inputs = new ArrayList<>();
+        if (args.length > 1) {
+            for (int i = 1; i < args.length; i++) inputs.add(Paths.get(args[i]));
+        } else {
+            for (String id : AudioManager.ALL_ASSETS) {
+                Path path = Paths.get(id + ".wav");
+                if (Files.isRegularFile(path)) {
+                    inputs.add(path);
+                } else {
+                    System.out.println("Skipping missing asset: " + path);
+                }
+            }
+        }
+        build(output, inputs);
+        System.out.println("Wrote " + inputs.size() + " assets to " + output + " (" + Files.size(output) + " bytes)");
+    }
+
+    static void build(Path output, List<Path> inputs) throws IOException {
+        List<byte[]> ids = new ArrayList<>();
+        long headerSize = 12;
+        for (Path input : inputs) {
+            String name = input.getFileName().toString();
+            int dot = name.lastIndexOf('.');
+            byte[] id = (dot > 0 ? name.substring(0, dot) : name).getBytes(StandardCharsets.UTF_8);
+            ids.add(id);
+            headerSize += 2 + id.length + 16;
+        }
+
+        ByteArrayOutputStream header = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(header);
+        out.writeInt(AssetBundle.MAGIC);
+        out.writeInt(AssetBundle.VERSION);
+        out.writeInt(inputs.size());
+        long offset = headerSize;
+        for (int i = 0; i < inputs.size(); i++) {
+            long length = Files.size(inputs.get(i));
+            out.writeShort(ids.get(i).length);
+            out.write(ids.get(i));
+            out.writeLong(offset);
+            out.writeLong(length);
+            offset += length;
+        }
+
+        // Written beside the target and moved into place so a running game never maps half a file
+        Path temp = Files.createTempFile(output.toAbsolutePath().getParent(), "assets", ".tmp");
+        try (DataOutputStream file = new DataOutputStream(Files.newOutputStream(temp))) {
+            header.writeTo(file);
+            for (Path input : inputs) {
+                Files.copy(input, file);
+            }
+        }
+        Files.move(temp, output, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
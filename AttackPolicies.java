@@ -0,0 +1,61 @@
+// === AttackPolicies Class ===
+final class AttackPolicies {
+    // Level 1: shuffle the attacks and take the first affordable one
+    static final AttackPolicy RANDOM = (self, foe, rng) -> {
+        int[] attacks = { Rules.BASE_ATTACK, Rules.SECONDARY_ATTACK, Rules.TERTIARY_ATTACK };
+        for (int i = 0; i < attacks.length; i++) {
+            int index = rng.nextInt(attacks.length);
+            int temp = attacks[i];
+            attacks[i] = attacks[index];
+            attacks[index] = temp;
+        }
+        for (int attack : attacks) {
+            if (Rules.STANDARD.canAfford(attack, self.sp)) {
+                return attack;
+            }
+        }
+        return Rules.BASE_ATTACK;
+    };
+
+    // Level 2: always the most expensive attack it can pay for
+    static final AttackPolicy GREEDY = (self, foe, rng) -> {
+        if (self.sp >= Rules.STANDARD.tertiaryCost) {
+            return Rules.TERTIARY_ATTACK;
+        } else if (self.sp >= Rules.STANDARD.secondaryCost) {
+            return Rules.SECONDARY_ATTACK;
+        } else {
+            return Rules.BASE_ATTACK;
+        }
+    };
+
+    // Level 3 and above: searches ahead, one attack deeper per level
+    private static final AttackPolicy[] SEARCH = new AttackPolicy[ExpectiminimaxPolicy.MAX_DEPTH + 1];
+
+    // From here on the opponent plays perfectly from the precomputed policy table
+    static final int HARD_LEVEL = 10;
+    private static AttackPolicy hard;
+
+    private AttackPolicies() {
+    }
+
+    static AttackPolicy forLevel(int level) {
+        if (level <= 1) return RANDOM;
+        if (level == 2) return GREEDY;
+        if (level >= HARD_LEVEL) return hard();
+        return search(ExpectiminimaxPolicy.depthForLevel(level));
+    }
+
+    static synchronized AttackPolicy hard() {
+        if (hard == null) {
+            hard = new TablePolicy(search(ExpectiminimaxPolicy.MAX_DEPTH));
+        }
+        return hard;
+    }
+
+    static synchronized AttackPolicy search(int depth) {
+        if (SEARCH[depth] == null) {
+            SEARCH[depth] = new ExpectiminimaxPolicy(Rules.STANDARD, depth, ExpectiminimaxPolicy.DEFAULT_BUDGET_NANOS);
+        }
+        return SEARCH[depth];
+    }
+}
@@ -0,0 +1,4 @@
+// === AttackPolicy Interface ===
+interface AttackPolicy {
+    int chooseAttack(Character self, Character foe, Rng rng);
+}
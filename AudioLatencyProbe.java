@@ -0,0 +1,93 @@
+import java.io.File;
+import java.util.Arrays;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.Clip;
+
+// === AudioLatencyProbe Class ===
+// Measures keypress-to-sound latency for menu_select.wav: the time from the
+// play call until the clip's frame position starts moving. "before" repeats
+// the old open-from-disk path, "after" goes through AudioManager: the mixer
+// when a line is available, the preloaded Clip pool otherwise.
+// Usage: java AudioLatencyProbe [presses]
+public class AudioLatencyProbe {
+    private static final String EFFECT = "menu_select.wav";
+    private static final long GIVE_UP_NANOS = 2_000_000_000L;
+
+    public static void main(String[] args) throws Exception {
+        int presses = args.length > 0 ? Integer.parseInt(args[0]) : 30;
+        if (!new File(EFFECT).exists()) {
+            System.out.println("Error: Audio file not found: " + EFFECT);
+            return;
+        }
+        try {
+            AudioSystem.getClip().close();
+        } catch (Exception e) {
+            System.out.println("No audio output device available, latency cannot be measured here.");
+            return;
+        }
+
+        long[] before = new long[presses];
+        for (int i = 0; i < presses; i++) {
+            long start = System.nanoTime();
+            AudioInputStream audioStream = AudioSystem.getAudioInputStream(new File(EFFECT));
+            Clip clip = AudioSystem.getClip();
+            clip.open(audioStream);
+            clip.start();
+            before[i] = waitForSound(clip, start);
+            clip.stop();
+            clip.close();
+        }
+
+        AudioManager audioManager = new AudioManager();
+        audioManager.awaitReady(10_000);
+        AudioMixer mixer = audioManager.mixer();
+        long[] after = new long[presses];
+        for (int i = 0; i < presses; i++) {
+            if (mixer != null) {
+                mixer.resetLatency();
+                audioManager.playSFX(AudioManager.MENU_SELECT, -10.0f);
+                after[i] = waitForMixer(mixer);
+            } else {
+                long start = System.nanoTime();
+                audioManager.playSFX(AudioManager.MENU_SELECT, -10.0f);
+                after[i] = waitForSound(audioManager.currentSFX(), start);
+            }
+            audioManager.stopSFX();
+        }
+        audioManager.close();
+
+        report("before (open per press)", before);
+        report(mixer != null ? "after (mixer)" : "after (preloaded pool)", after);
+    }
+
+    private static long waitForSound(Clip clip, long start) {
+        if (clip == null) return -1;
+        while (clip.getLongFramePosition() == 0) {
+            if (System.nanoTime() - start > GIVE_UP_NANOS) return -1;
+            Thread.onSpinWait();
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static long waitForMixer(AudioMixer mixer) {
+        long start = System.nanoTime();
+        while (mixer.lastStartLatencyNanos() < 0) {
+            if (System.nanoTime() - start > GIVE_UP_NANOS) return -1;
+            Thread.onSpinWait();
+        }
+        return mixer.lastStartLatencyNanos();
+    }
+
+    private static void report(String label, long[] samples) {
+        long[] sorted = Arrays.stream(samples).filter(sample -> sample >= 0).sorted().toArray();
+        if (sorted.length == 0) {
+            System.out.println(label + ": no sound was heard");
+            return;
+        }
+        System.out.printf("%-26s p50 %7.2f ms  p99 %7.2f ms  max %7.2f ms  (%d presses)%n", label,
+            sorted[sorted.length / 2] / 1e6,
+            sorted[Math.min(sorted.length - 1, (int) (sorted.length * 0.99))] / 1e6,
+            sorted[sorted.length - 1] / 1e6, sorted.length);
+    }
+}
@@ -0,0 +1,263 @@
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.LockSupport;
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.LineUnavailableException;
+import javax.sound.sampled.SourceDataLine;
+
+// === AudioMixer Class ===
+// One thread owns a single SourceDataLine and mixes every playing sound into it.
+// Callers only drop a command on a lock-free queue, so they never wait on audio.
+class AudioMixer implements Runnable {
+    static final AudioFormat FORMAT = new AudioFormat(44100f, 16, 2, true, false);
+    static final int MAX_VOICES = 8;
+
+    static final int GROUP_SFX = 0;
+
+    static final int CROSSFADE_FRAMES = 44100 * 3 / 2;
+
+    private static final int BLOCK_FRAMES = 256;
+    private static final int LINE_BUFFER_FRAMES = 2048;
+
+    private static final int PLAY = 0;
+    private static final int STOP_GROUP = 1;
+    private static final int SHUTDOWN = 2;
+    private static final int PLAY_MUSIC = 3;
+    private static final int STOP_MUSIC = 4;
+    private static final int MUSIC_GAIN = 5;
+
+    private static class Command {
+        final int type;
+        final short[] samples;
+        final float gain;
+        final int group;
+        final MusicStream music;
+        final int fadeFrames;
+        final long enqueuedAt;
+
+        Command(int type, short[] samples, float gain, int group) {
+            this(type, samples, gain, group, null, 0);
+        }
+
+        Command(int type, short[] samples, float gain, int group, MusicStream music, int fadeFrames) {
+            this.type = type;
+            this.samples = samples;
+            this.gain = gain;
+            this.group = group;
+            this.music = music;
+            this.fadeFrames = fadeFrames;
+            this.enqueuedAt = System.nanoTime();
+        }
+    }
+
+    private static class Voice {
+        short[] samples;
+        int position;
+        float gain;
+        int group;
+        long enqueuedAt;
+        boolean active;
+    }
+
+    private final ConcurrentLinkedQueue<Command> commands = new ConcurrentLinkedQueue<>();
+    private final Voice[] voices = new Voice[MAX_VOICES];
+    private final int[] mixBuffer = new int[BLOCK_FRAMES * 2];
+    private final byte[] outBuffer = new byte[BLOCK_FRAMES * 4];
+    private final SourceDataLine line;
+    private final Thread thread;
+    private MusicStream music;       // the track fading in or playing
+    private MusicStream fadingMusic; // the previous track while it fades out
+    private volatile boolean running = true;
+    private volatile long lastStartLatencyNanos = -1;
+
+    private AudioMixer(SourceDataLine line) {
+        this.line = line;
+        for (int i = 0; i < voices.length; i++) {
+            voices[i] = new Voice();
+        }
+        thread = new Thread(this, "audio-mixer");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MAX_PRIORITY);
+    }
+
+    static AudioMixer start() throws LineUnavailableException {
+        SourceDataLine line = AudioSystem.getSourceDataLine(FORMAT);
+        line.open(FORMAT, LINE_BUFFER_FRAMES * FORMAT.getFrameSize());
+        line.start();
+        AudioMixer mixer = new AudioMixer(line);
+        mixer.thread.start();
+        return mixer;
+    }
+
+    // Interleaved stereo samples in FORMAT, gain in decibels like the Clip MASTER_GAIN control
+    void play(short[] samples, float gainDb, int group) {
+        send(new Command(PLAY, samples, decibelsToLinear(gainDb), group));
+    }
+
+    // Crossfades from the current track to the new one
+    void playMusic(MusicStream stream, float gainDb, int fadeFrames) {
+        send(new Command(PLAY_MUSIC, null, decibelsToLinear(gainDb), 0, stream, fadeFrames));
+    }
+
+    void stopMusic(int fadeFrames) {
+        send(new Command(STOP_MUSIC, null, 0, 0, null, fadeFrames));
+    }
+
+    void setMusicGain(float gainDb) {
+        send(new Command(MUSIC_GAIN, null, decibelsToLinear(gainDb), 0));
+    }
+
+    void stopGroup(int group) {
+        send(new Command(STOP_GROUP, null, 0, group));
+    }
+
+    void shutdown() {
+        send(new Command(SHUTDOWN, null, 0, 0));
+    }
+
+    // Time from the last play() call to its first block reaching the line, -1 until one has
+    long lastStartLatencyNanos() {
+        return lastStartLatencyNanos;
+    }
+
+    void resetLatency() {
+        lastStartLatencyNanos = -1;
+    }
+
+    private void send(Command command) {
+        commands.offer(command);
+        LockSupport.unpark(thread);
+    }
+
+    static float decibelsToLinear(float gainDb) {
+        return (float) Math.pow(10.0, gainDb / 20.0);
+    }
+
+    @Override
+    public void run() {
+        try {
+            while (running) {
+                drainCommands();
+                if (!running) break;
+                if (!anyActive()) {
+                    LockSupport.park(this);
+                    continue;
+                }
+                mixBlock();
+                line.write(outBuffer, 0, outBuffer.length);
+            }
+        } finally {
+            if (music != null) music.close();
+            if (fadingMusic != null) fadingMusic.close();
+            line.stop();
+            line.close();
+        }
+    }
+
+    private void drainCommands() {
+        Command command;
+        while ((command = commands.poll()) != null) {
+            switch (command.type) {
+                case PLAY:
+                    startVoice(command);
+                    break;
+                case STOP_GROUP:
+                    for (Voice voice : voices) {
+                        if (voice.group == command.group) voice.active = false;
+                    }
+                    break;
+                case SHUTDOWN:
+                    running = false;
+                    break;
+                case PLAY_MUSIC:
+                    fadeOutMusic(command.fadeFrames);
+                    music = command.music;
+                    music.setGain(0);
+                    music.fadeTo(command.gain, command.fadeFrames);
+                    break;
+                case STOP_MUSIC:
+                    fadeOutMusic(command.fadeFrames);
+                    break;
+                case MUSIC_GAIN:
+                    if (music != null) music.setGain(command.gain);
+                    break;
+            }
+        }
+    }
+
+    private void fadeOutMusic(int fadeFrames) {
+        if (music == null) return;
+        if (fadingMusic != null) fadingMusic.close();
+        fadingMusic = music;
+        fadingMusic.fadeTo(0, fadeFrames);
+        music = null;
+    }
+
+    // Takes a free voice, or steals the one closest to finishing
+    private void startVoice(Command command) {
+        Voice target = null;
+        for (Voice voice : voices) {
+            if (!voice.active) {
+                target = voice;
+                break;
+            }
+            if (target == null || voice.samples.length - voice.position < target.samples.length - target.position) {
+                target = voice;
+            }
+        }
+        target.samples = command.samples;
+        target.position = 0;
+        target.gain = command.gain;
+        target.group = command.group;
+        target.enqueuedAt = command.enqueuedAt;
+        target.active = true;
+    }
+
+    private boolean anyActive() {
+        if (music != null || fadingMusic != null) return true;
+        for (Voice voice : voices) {
+            if (voice.active) return true;
+        }
+        return false;
+    }
+
+    private void mixBlock() {
+        int[] mix = mixBuffer;
+        Arrays.fill(mix, 0);
+        if (music != null) {
+            music.mixInto(mix);
+            if (music.isFinished()) music = null;
+        }
+        if (fadingMusic != null) {
+            fadingMusic.mixInto(mix);
+            if (fadingMusic.isSilent() || fadingMusic.isFinished()) {
+                fadingMusic.close();
+                fadingMusic = null;
+            }
+        }
+        for (Voice voice : voices) {
+            if (!voice.active) continue;
+            if (voice.position == 0) {
+                lastStartLatencyNanos = System.nanoTime() - voice.enqueuedAt;
+            }
+            short[] samples = voice.samples;
+            int count = Math.min(mix.length, samples.length - voice.position);
+            float gain = voice.gain;
+            int position = voice.position;
+            for (int i = 0; i < count; i++) {
+                mix[i] += (int) (samples[position + i] * gain);
+            }
+            voice.position += count;
+            if (voice.position >= samples.length) voice.active = false;
+        }
+        byte[] out = outBuffer;
+        for (int i = 0; i < mix.length; i++) {
+            int sample = mix[i];
+            if (sample > Short.MAX_VALUE) sample = Short.MAX_VALUE;
+            else if (sample < Short.MIN_VALUE) sample = Short.MIN_VALUE;
+            out[2 * i] = (byte) sample;
+            out[2 * i + 1] = (byte) (sample >> 8);
+        }
+    }
+}
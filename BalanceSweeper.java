@@ -0,0 +1,290 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+// === BalanceSweeper Class ===
+// Searches for Rules that make every matchup a coin flip. Each configuration
+// is drawn at random from the parameter ranges and played through
+// BatchBattleKernel in all four pairings of the random and greedy policies
+// (the player always moves first). Its score is the worst matchup's distance
+// from a 50% win rate.
+//
+// Configurations run in parallel on a fork-join pool, a round of battles at
+// a time. After each round a configuration gets a confidence interval on its
+// score; once the bottom of that interval is above the top of the best
+// interval seen so far it cannot win and stops there. The intervals use
+// z = 3 rather than 1.96 because each configuration is looked at after every
+// round, not just once, so a good configuration is rarely dropped by bad luck.
+//
+// Usage: java BalanceSweeper [configs] [battlesPerMatchup] [seed] [name=min..max[:step]]...
+// Ranges: base, secondaryCost, tertiaryCost, secondary, tertiary (each of
+// the six faces, kept in rising order), slip, refundRoll, bonusHp, bonusSp, spCap
+public class BalanceSweeper {
+    private static final int ROUND_BATTLES = 1024;
+    private static final int LANES = 256;
+    private static final double Z = 3.0;
+    private static final int SHOWN = 5;
+    private static final int[][] PAIRINGS = {
+        { BatchBattleKernel.GREEDY, BatchBattleKernel.GREEDY },
+        { BatchBattleKernel.RANDOM, BatchBattleKernel.RANDOM },
+        { BatchBattleKernel.GREEDY, BatchBattleKernel.RANDOM },
+        { BatchBattleKernel.RANDOM, BatchBattleKernel.GREEDY },
+    };
+    private static final String[] PAIRING_NAMES = { "greedy v greedy", "random v random", "greedy v random", "random v greedy" };
+
+    // === Range Class ===
+    static final class Range {
+        final int min;
+        final int max;
+        final int step;
+
+        Range(int min, int max, int step) {
+            if (max < min || step < 1) throw new IllegalArgumentException("Bad range " + min + ".." + max + ":" + step);
+            this.min = min;
+            this.max = max;
+            this.step = step;
+        }
+
+        // "10", "10..40" or "10..40:5"
+        static Range parse(String text) {
+            int colon = text.indexOf(':');
+            int step = colon < 0 ? 1 : Integer.parseInt(text.substring(colon + 1));
+            String bounds = colon < 0 ? text : text.substring(0, colon);
+            int dots = bounds.indexOf("..");
+            if (dots < 0) {
+                int value = Integer.parseInt(bounds);
+                return new Range(value, value, 1);
+            }
+            return new Range(Integer.parseInt(bounds.substring(0, dots)), Integer.parseInt(bounds.substring(dots + 2)), step);
+        }
+
+        int pick(Rng rng) {
+            return min + step * rng.nextInt((max - min) / step + 1);
+        }
+
+        @Override
+        public String toString() {
+            return min == max ? String.valueOf(min) : min + ".." + max + (step == 1 ? "" : ":" + step);
+        }
+    }
+
+    // === Candidate Class ===
+    // One configuration and what its battles have shown so far
+    static final class Candidate {
+        final int index;
+        final Rules rules;
+        final int[] secondary;
+        final int[] tertiary;
+        final MatchupStats[] stats = new MatchupStats[PAIRINGS.length];
+        boolean stoppedEarly;
+
+        Candidate(int index, Rules rules, int[] secondary, int[] tertiary) {
+            this.index = index;
+            this.rules = rules;
+            this.secondary = secondary;
+            this.tertiary = tertiary;
+            for (int i = 0; i < stats.length; i++) stats[i] = new MatchupStats();
+        }
+
+        double score() {
+            double worst = 0;
+            for (MatchupStats matchup : stats) worst = Math.max(worst, Math.abs(matchup.winRate() - 0.5));
+            return worst;
+        }
+
+        double lowerBound() {
+            double worst = 0;
+            for (MatchupStats matchup : stats) worst = Math.max(worst, Math.abs(matchup.winRate() - 0.5) - margin(matchup));
+            return Math.max(0, worst);
+        }
+
+        double upperBound() {
+            double worst = 0;
+            for (MatchupStats matchup : stats) worst = Math.max(worst, Math.abs(matchup.winRate() - 0.5) + margin(matchup));
+            return worst;
+        }
+
+        private static double margin(MatchupStats matchup) {
+            if (matchup.battles == 0) return 0.5;
+            double p = matchup.winRate();
+            return Z * Math.sqrt(Math.max(p * (1 - p), 1.0 / matchup.battles) / matchup.battles);
+        }
+
+        long battles() {
+            long total = 0;
+            for (MatchupStats matchup : stats) total += matchup.battles;
+            return total;
+        }
+    }
+
+    private final Map<String, Range> ranges = new LinkedHashMap<>();
+    private final int battlesPerMatchup;
+    // Lowest upper bound on any score so far, as double bits; scores are never negative so the bits order like the values
+    private final AtomicLong bestUpper = new AtomicLong(Double.doubleToLongBits(1.0));
+    private final LongAdder battlesPlayed = new LongAdder();
+
+    BalanceSweeper(int battlesPerMatchup) {
+        this.battlesPerMatchup = battlesPerMatchup;
+        Rules standard = Rules.STANDARD;
+        ranges.put("base", new Range(standard.baseDamage, standard.baseDamage, 1));
+        ranges.put("secondaryCost", new Range(10, 40, 5));
+        ranges.put("tertiaryCost", new Range(30, 80, 5));
+        ranges.put("secondary", new Range(0, 30, 1));
+        ranges.put("tertiary", new Range(0, 60, 1));
+        ranges.put("slip", new Range(0, 20, 1));
+        ranges.put("refundRoll", new Range(3, 7, 1));
+        ranges.put("bonusHp", new Range(20, 80, 10));
+        ranges.put("bonusSp", new Range(standard.bonusSp, standard.bonusSp, 1));
+        ranges.put("spCap", new Range(standard.spCap, standard.spCap, 1));
+    }
+
+    void setRange(String name, Range range) {
+        if (!ranges.containsKey(name)) throw new IllegalArgumentException("Unknown parameter: " + name);
+        if (name.equals("base") && range.min < 1) throw new IllegalArgumentException("base must be at least 1 or a battle may never end");
+        ranges.put(name, range);
+    }
+
+    // The standard rules first, for comparison, then random draws from the ranges
+    List<Candidate> draw(int configs, Rng rng) {
+        List<Candidate> candidates = new ArrayList<>();
+        candidates.add(new Candidate(0, Rules.STANDARD, standardTable(Rules.SECONDARY_ATTACK), standardTable(Rules.TERTIARY_ATTACK)));
+        while (candidates.size() < configs) {
+            int secondaryCost = ranges.get("secondaryCost").pick(rng);
+            int tertiaryCost = ranges.get("tertiaryCost").pick(rng);
+            // The bigger attack has to cost more, or nobody would pick the smaller one
+            if (tertiaryCost <= secondaryCost) continue;
+            int[] secondary = table(ranges.get("secondary"), rng);
+            int[] tertiary = table(ranges.get("tertiary"), rng);
+            Rules rules = new Rules(ranges.get("base").pick(rng), secondaryCost, tertiaryCost, secondary, tertiary,
+                ranges.get("slip").pick(rng), ranges.get("refundRoll").pick(rng), ranges.get("bonusHp").pick(rng),
+                ranges.get("bonusSp").pick(rng), ranges.get("spCap").pick(rng));
+            candidates.add(new Candidate(candidates.size(), rules, secondary, tertiary));
+        }
+        return candidates;
+    }
+
+    private static int[] table(Range range, Rng rng) {
+        int[] faces = new int[6];
+        for (int i = 0; i < faces.length; i++) faces[i] = range.pick(rng);
+        Arrays.sort(faces);
+        return faces;
+    }
+
+    private static int[] standardTable(int attack) {
+        int[] faces = new int[6];
+        for (int roll = 1; roll <= 6; roll++) faces[roll - 1] = Rules.STANDARD.damage(attack, roll);
+        return faces;
+    }
+
+    private class EvaluateTask extends RecursiveTask<Candidate> {
+        private static final long serialVersionUID = 1L;
+
+        private final Candidate candidate;
+        private final Rng rng;
+
+        EvaluateTask(Candidate candidate, Rng rng) {
+            this.candidate = candidate;
+            this.rng = rng;
+        }
+
+        @Override
+        protected Candidate compute() {
+            BatchBattleKernel kernel = new BatchBattleKernel(candidate.rules, LANES, 100, 100, rng);
+            for (int played = 0; played < battlesPerMatchup; played += ROUND_BATTLES) {
+                int round = Math.min(ROUND_BATTLES, battlesPerMatchup - played);
+                for (int i = 0; i < PAIRINGS.length; i++) {
+                    kernel.run(round, PAIRINGS[i][0], PAIRINGS[i][1], candidate.stats[i]);
+                }
+                battlesPlayed.add((long) round * PAIRINGS.length);
+                offerUpperBound(candidate.upperBound());
+                if (candidate.lowerBound() > Double.longBitsToDouble(bestUpper.get())) {
+                    candidate.stoppedEarly = true;
+                    break;
+                }
+            }
+            return candidate;
+        }
+    }
+
+    private void offerUpperBound(double upper) {
+        long bits = Double.doubleToLongBits(upper);
+        long best = bestUpper.get();
+        while (bits < best && !bestUpper.compareAndSet(best, bits)) {
+            best = bestUpper.get();
+        }
+    }
+
+    List<Candidate> sweep(ForkJoinPool pool, List<Candidate> candidates, Rng rng) {
+        List<EvaluateTask> tasks = new ArrayList<>();
+        for (Candidate candidate : candidates) tasks.add(new EvaluateTask(candidate, rng.split()));
+        pool.submit(() -> {
+            RecursiveTask.invokeAll(tasks);
+        }).join();
+        List<Candidate> results = new ArrayList<>();
+        for (EvaluateTask task : tasks) results.add(task.join());
+        // Fully played configurations first, best score first
+        results.sort(Comparator.comparing((Candidate c) -> c.stoppedEarly).thenComparingDouble(Candidate::score));
+        return results;
+    }
+
+    public static void main(String[] args) {
+        int configs = args.length > 0 ? Integer.parseInt(args[0]) : 20_000;
+        int battles = args.length > 1 ? Integer.parseInt(args[1]) : 32_768;
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : System.nanoTime();
+        BalanceSweeper sweeper = new BalanceSweeper(battles);
+        for (int i = 3; i < args.length; i++) {
+            int equals = args[i].indexOf('=');
+            if (equals < 0) throw new IllegalArgumentException("Expected name=min..max[:step], got " + args[i]);
+            sweeper.setRange(args[i].substring(0, equals), Range.parse(args[i].substring(equals + 1)));
+        }
+
+        int cores = Runtime.getRuntime().availableProcessors();
+        ForkJoinPool pool = new ForkJoinPool(cores);
+        Rng rng = Rng.forMatch(seed);
+        List<Candidate> candidates = sweeper.draw(configs, rng);
+        long start = System.nanoTime();
+        List<Candidate> results = sweeper.sweep(pool, candidates, rng);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        pool.shutdown();
+
+        System.out.println("Balance sweep: " + configs + " configurations, up to " + battles + " battles per matchup, seed " + seed);
+        System.out.println("Ranges: " + sweeper.ranges);
+        long stopped = results.stream().filter(c -> c.stoppedEarly).count();
+        long played = sweeper.battlesPlayed.sum();
+        System.out.printf("%d battles in %.1f s on %d cores (%.0f battles/s), %d of %d configurations stopped early%n%n",
+            played, seconds, cores, played / seconds, stopped, configs);
+
+        Candidate standard = null;
+        for (Candidate candidate : results) {
+            if (candidate.index == 0) standard = candidate;
+        }
+        for (int i = 0; i < Math.min(SHOWN, results.size()); i++) {
+            print("#" + (i + 1), results.get(i));
+        }
+        print("Standard rules" + (standard.stoppedEarly ? " (stopped early)" : ""), standard);
+    }
+
+    private static void print(String title, Candidate candidate) {
+        Rules rules = candidate.rules;
+        System.out.printf("%s: worst matchup %.2f%% off even [%.2f, %.2f], %d battles%n", title,
+            candidate.score() * 100, candidate.lowerBound() * 100, candidate.upperBound() * 100, candidate.battles());
+        for (int i = 0; i < PAIRINGS.length; i++) {
+            System.out.printf("  %-16s %6.2f%%%n", PAIRING_NAMES[i], candidate.stats[i].winRate() * 100);
+        }
+        System.out.printf("  new Rules(%d, %d, %d, new int[] %s, new int[] %s, %d, %d, %d, %d, %d)%n%n",
+            rules.baseDamage, rules.secondaryCost, rules.tertiaryCost, braces(candidate.secondary), braces(candidate.tertiary),
+            rules.slipPercent, rules.refundRoll, rules.bonusHpThreshold, rules.bonusSp, rules.spCap);
+    }
+
+    private static String braces(int[] values) {
+        String list = Arrays.toString(values);
+        return "{ " + list.substring(1, list.length() - 1) + " }";
+    }
+}
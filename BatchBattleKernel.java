@@ -0,0 +1,259 @@
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+
+// === BatchBattleKernel Class ===
+// Runs many standard battles side by side in flat int arrays, one slot per
+// battle, instead of a Player and Opponent object each. Every pass plays one
+// round (the player's attack, then the opponent's) in every live slot. A
+// finished battle is counted and its slot restarted while battles are left,
+// otherwise the last live slot moves into the gap, so the live slots stay
+// packed at the front. Nothing is allocated once the kernel is built.
+//
+// The rules are baked into lookup tables up front. Each attack takes half of
+// a SplitMix64 draw, scaled to one of the ROLLS * 100 * 27 equally likely
+// combinations of dice roll, slip check and random policy swap order, and a
+// table turns that into all three. The policies are AttackPolicies.RANDOM and
+// GREEDY, with RANDOM's odds reproduced from its 27 swap orders. The round
+// itself has no branches: C2 cannot vectorize the table lookups, so the
+// speed comes from never mispredicting on the dice.
+class BatchBattleKernel {
+    static final int RANDOM = 0;
+    static final int GREEDY = 1;
+
+    private static final int ROLLS = 6;
+    private static final int ORDERS = 27;
+    private static final int OUTCOMES = ROLLS * 100 * ORDERS;
+
+    private final int lanes;
+    private final int startHp;
+    private final int startSp;
+    private final int[] playerHp;
+    private final int[] playerSp;
+    private final int[] opponentHp;
+    private final int[] opponentSp;
+    private final int[] turns;
+
+    // Rules as tables: [attack * 8 + roll] for damage dealt and SP gained less
+    // SP spent, [outcome] for roll | hit << 3 | swap order << 4, and per policy
+    // [sp * 27 + swap order] for the attack it picks
+    private final int[] damage = new int[4 * 8];
+    private final int[] spChange = new int[4 * 8];
+    private final short[] outcomes = new short[OUTCOMES];
+    private final byte[][] picks = new byte[2][];
+    private final int bonusHpThreshold;
+    private final int bonusSp;
+    private final int spCap;
+
+    private long seed;
+    private final long gamma;
+
+    BatchBattleKernel(Rules rules, int lanes, int startHp, int startSp, Rng rng) {
+        this.lanes = lanes;
+        this.startHp = startHp;
+        this.startSp = startSp;
+        playerHp = new int[lanes];
+        playerSp = new int[lanes];
+        opponentHp = new int[lanes];
+        opponentSp = new int[lanes];
+        turns = new int[lanes];
+
+        for (int attack = Rules.BASE_ATTACK; attack <= Rules.TERTIARY_ATTACK; attack++) {
+            for (int roll = 1; roll <= ROLLS; roll++) {
+                damage[attack * 8 + roll] = rules.damage(attack, roll);
+                spChange[attack * 8 + roll] = (roll >= rules.refundRoll ? rules.cost(attack) / 2 : 0) - rules.cost(attack);
+            }
+        }
+        for (int i = 0; i < OUTCOMES; i++) {
+            int hit = i / ROLLS % 100 >= rules.slipPercent ? 1 : 0;
+            outcomes[i] = (short) (1 + i % ROLLS | hit << 3 | i / (ROLLS * 100) << 4);
+        }
+        bonusHpThreshold = rules.bonusHpThreshold;
+        bonusSp = rules.bonusSp;
+        spCap = rules.spCap;
+
+        int maxSp = Math.max(startSp, rules.spCap);
+        picks[RANDOM] = new byte[(maxSp + 1) * ORDERS];
+        picks[GREEDY] = new byte[(maxSp + 1) * ORDERS];
+        for (int sp = 0; sp <= maxSp; sp++) {
+            int mask = 0;
+            int greedy = Rules.BASE_ATTACK;
+            for (int attack = Rules.BASE_ATTACK; attack <= Rules.TERTIARY_ATTACK; attack++) {
+                if (!rules.canAfford(attack, sp)) continue;
+                mask |= 1 << (attack - 1);
+                greedy = attack;
+            }
+            for (int order = 0; order < ORDERS; order++) {
+                picks[RANDOM][sp * ORDERS + order] = (byte) randomPick(mask, order);
+                picks[GREEDY][sp * ORDERS + order] = (byte) greedy;
+            }
+        }
+
+        // A private stream split off the caller's, stepped inline below
+        Rng stream = rng.split();
+        seed = stream.state();
+        gamma = stream.gamma();
+    }
+
+    // The attack RANDOM ends up with for one of its 27 swap orders
+    private static int randomPick(int mask, int order) {
+        int[] attacks = { 1, 2, 3 };
+        int[] swaps = { order / 9, order / 3 % 3, order % 3 };
+        for (int i = 0; i < 3; i++) {
+            int temp = attacks[i];
+            attacks[i] = attacks[swaps[i]];
+            attacks[swaps[i]] = temp;
+        }
+        for (int attack : attacks) {
+            if ((mask & 1 << (attack - 1)) != 0) return attack;
+        }
+        return Rules.BASE_ATTACK;
+    }
+
+    // Plays the given number of battles, the player moving first in each
+    MatchupStats run(long battles, int playerPolicy, int opponentPolicy, MatchupStats stats) {
+        byte[] playerPick = picks[playerPolicy];
+        byte[] opponentPick = picks[opponentPolicy];
+        int live = (int) Math.min(lanes, battles);
+        long started = live;
+        for (int i = 0; i < live; i++) reset(i);
+
+        while (live > 0) {
+            playRound(playerPick, opponentPick, live);
+
+            int i = 0;
+            while (i < live) {
+                if (playerHp[i] > 0 && opponentHp[i] > 0) {
+                    i++;
+                    continue;
+                }
+                stats.record(opponentHp[i] == 0, turns[i]);
+                if (started < battles) {
+                    reset(i);
+                    started++;
+                    i++;
+                } else {
+                    // Keep the live slots packed; the moved slot is checked next
+                    live--;
+                    playerHp[i] = playerHp[live];
+                    playerSp[i] = playerSp[live];
+                    opponentHp[i] = opponentHp[live];
+                    opponentSp[i] = opponentSp[live];
+                    turns[i] = turns[live];
+                }
+            }
+        }
+        return stats;
+    }
+
+    private void reset(int i) {
+        playerHp[i] = startHp;
+        playerSp[i] = startSp;
+        opponentHp[i] = startHp;
+        opponentSp[i] = startSp;
+        turns[i] = 0;
+    }
+
+    // One round in every slot. Every slot is mid-battle here, so the player
+    // always attacks; the opponent only if still standing. The same steps as
+    // BattleEngine.resolveAttack, with sign bits and tables in place of branches.
+    private void playRound(byte[] playerPick, byte[] opponentPick, int live) {
+        for (int i = 0; i < live; i++) {
+            long x = next();
+            int playerSpAfter = playerSp[i];
+            int opponentHpBefore = opponentHp[i];
+            int outcome = outcomes[(int) ((x & 0xffffffffL) * OUTCOMES >>> 32)];
+            int attackRoll = playerPick[playerSpAfter * ORDERS + (outcome >>> 4)] * 8 + (outcome & 7);
+            playerSpAfter += spChange[attackRoll];
+            int opponentHpAfter = Math.max(0, opponentHpBefore - (outcome >>> 3 & 1) * damage[attackRoll]);
+            playerSpAfter += bonus(opponentHpBefore, opponentHpAfter, playerSpAfter);
+
+            int standing = -opponentHpAfter >>> 31;
+            int opponentSpAfter = opponentSp[i];
+            int playerHpBefore = playerHp[i];
+            outcome = outcomes[(int) ((x >>> 32) * OUTCOMES >>> 32)];
+            attackRoll = opponentPick[opponentSpAfter * ORDERS + (outcome >>> 4)] * 8 + (outcome & 7);
+            opponentSpAfter += standing * spChange[attackRoll];
+            int playerHpAfter = Math.max(0, playerHpBefore - (standing & outcome >>> 3) * damage[attackRoll]);
+            opponentSpAfter += bonus(playerHpBefore, playerHpAfter, opponentSpAfter);
+
+            playerHp[i] = playerHpAfter;
+            playerSp[i] = playerSpAfter;
+            opponentHp[i] = opponentHpAfter;
+            opponentSp[i] = opponentSpAfter;
+            turns[i] += 1 + standing;
+        }
+    }
+
+    // The SP an attacker gets for taking the defender below the bonus threshold
+    private int bonus(int hpBefore, int hpAfter, int sp) {
+        int crossed = (bonusHpThreshold - 1 - hpBefore & hpAfter - bonusHpThreshold) >>> 31;
+        return crossed * Math.max(0, Math.min(bonusSp, spCap - sp));
+    }
+
+    // SplitMix64, the same steps as Rng, kept inline so the loop makes no calls
+    private long next() {
+        long z = seed += gamma;
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    // Usage: java BatchBattleKernel [battles] [lanes] [seed]
+    // Plays greedy against random both ways, object per battle and batched, and compares.
+    public static void main(String[] args) {
+        long battles = args.length > 0 ? Long.parseLong(args[0]) : 10_000_000L;
+        int lanes = args.length > 1 ? Integer.parseInt(args[1]) : 4096;
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : System.nanoTime();
+
+        // Warm both paths up so the JIT has compiled them before timing
+        runObjects(Rng.forMatch(seed), 200_000);
+        new BatchBattleKernel(Rules.STANDARD, lanes, 100, 100, Rng.forMatch(seed))
+            .run(200_000, GREEDY, RANDOM, new MatchupStats());
+
+        long gcBefore = gcCount();
+        long start = System.nanoTime();
+        MatchupStats objects = runObjects(Rng.forMatch(seed), battles);
+        double objectSeconds = (System.nanoTime() - start) / 1e9;
+        long objectGcs = gcCount() - gcBefore;
+
+        gcBefore = gcCount();
+        start = System.nanoTime();
+        BatchBattleKernel kernel = new BatchBattleKernel(Rules.STANDARD, lanes, 100, 100, Rng.forMatch(seed));
+        MatchupStats batched = kernel.run(battles, GREEDY, RANDOM, new MatchupStats());
+        double batchSeconds = (System.nanoTime() - start) / 1e9;
+        long batchGcs = gcCount() - gcBefore;
+
+        System.out.println("Greedy player vs random opponent, " + battles + " battles, " + lanes + " lanes, seed " + seed);
+        report("objects", objects, objectSeconds, objectGcs);
+        report("batched", batched, batchSeconds, batchGcs);
+        System.out.printf("Speed-up: %.1fx%n", objectSeconds / batchSeconds);
+    }
+
+    // The usual way: a fresh Player and Opponent per battle through BattleEngine
+    private static MatchupStats runObjects(Rng rng, long battles) {
+        MatchupStats stats = new MatchupStats();
+        BattleEngine engine = new BattleEngine(Rules.STANDARD, rng);
+        for (long i = 0; i < battles; i++) {
+            Player player = new Player("dog");
+            Opponent opponent = new Opponent("cat");
+            int turns = engine.runBattle(player, opponent, AttackPolicies.GREEDY, AttackPolicies.RANDOM);
+            stats.record(player.isAlive(), turns);
+        }
+        return stats;
+    }
+
+    private static void report(String name, MatchupStats stats, double seconds, long gcs) {
+        double[] interval = stats.winRateInterval();
+        System.out.printf("%-8s %12.0f battles/s  win %.2f%% [%.2f, %.2f]  turns %.2f  GCs %d%n",
+            name, stats.battles / seconds, stats.winRate() * 100, interval[0] * 100, interval[1] * 100,
+            stats.meanTurns(), gcs);
+    }
+
+    private static long gcCount() {
+        long count = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += Math.max(0, gc.getCollectionCount());
+        }
+        return count;
+    }
+}
@@ -0,0 +1,93 @@
+// === BattleEngine Class ===
+// The combat rules without any printing, input or audio. Game narrates the
+// TurnResult afterwards; simulations just run battles back to back.
+class BattleEngine {
+    private final Rules rules;
+    private final Rng rng;
+    private final TurnResult scratch = new TurnResult();
+    private BattleListener listener;
+
+    public BattleEngine(Rules rules, Rng rng) {
+        this.rules = rules;
+        this.rng = rng;
+    }
+
+    void addListener(BattleListener listener) {
+        this.listener = BattleListener.both(this.listener, listener);
+    }
+
+    // Marks the start of a battle for the listener; runBattle does this itself, finishBattle does not
+    public void startBattle(Character player, Character opponent) {
+        if (listener != null) listener.battleStarted(player, opponent);
+    }
+
+    public void resolveAttack(Character attacker, Character defender, int attack, TurnResult out) {
+        Metrics.TurnEvent span = Metrics.ENABLED ? new Metrics.TurnEvent() : null;
+        out.requestedAttack = attack;
+        out.roll = 0;
+        out.slipped = false;
+        out.spRefund = 0;
+        out.spBonus = 0;
+
+        if (attack != Rules.SECONDARY_ATTACK && attack != Rules.TERTIARY_ATTACK
+                || !rules.canAfford(attack, attacker.sp)) {
+            attack = Rules.BASE_ATTACK;
+        }
+        out.attack = attack;
+
+        int damage;
+        if (attack == Rules.BASE_ATTACK) {
+            damage = rules.baseDamage;
+        } else {
+            int cost = rules.cost(attack);
+            attacker.reduceSp(cost);
+            int roll = Dice.roll(rng);
+            damage = rules.damage(attack, roll);
+            out.roll = roll;
+            if (roll >= rules.refundRoll) {
+                out.spRefund = cost / 2;
+                attacker.sp += out.spRefund;
+            }
+        }
+        out.damage = damage;
+
+        if (damage > 0 && rng.chance(rules.slipPercent)) {
+            out.slipped = true;
+        } else {
+            int hpBefore = defender.hp;
+            defender.reduceHp(damage);
+            if (hpBefore >= rules.bonusHpThreshold && defender.hp < rules.bonusHpThreshold
+                    && attacker.sp < rules.spCap) {
+                out.spBonus = Math.min(rules.bonusSp, rules.spCap - attacker.sp);
+                attacker.sp += out.spBonus;
+            }
+        }
+        if (span != null) {
+            span.attack = attack;
+            span.damage = out.dealt();
+            span.slipped = out.slipped;
+            span.end(Metrics.TURN);
+        }
+        if (listener != null) listener.attackResolved(attacker, defender, out);
+    }
+
+    // Plays a whole battle with the player moving first, returns the number of attacks made
+    public int runBattle(Character player, Character opponent, AttackPolicy playerPolicy, AttackPolicy opponentPolicy) {
+        startBattle(player, opponent);
+        return finishBattle(player, opponent, playerPolicy, opponentPolicy);
+    }
+
+    // Plays out a battle already announced with startBattle, the player to move
+    public int finishBattle(Character player, Character opponent, AttackPolicy playerPolicy, AttackPolicy opponentPolicy) {
+        int turns = 0;
+        while (true) {
+            resolveAttack(player, opponent, playerPolicy.chooseAttack(player, opponent, rng), scratch);
+            turns++;
+            if (!opponent.isAlive()) return turns;
+
+            resolveAttack(opponent, player, opponentPolicy.chooseAttack(opponent, player, rng), scratch);
+            turns++;
+            if (!player.isAlive()) return turns;
+        }
+    }
+}
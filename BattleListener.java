@@ -0,0 +1,27 @@
+// === BattleListener Interface ===
+// Hears about every battle BattleEngine starts and every attack it resolves,
+// straight after the numbers have changed. Called on the battle's own thread.
+interface BattleListener {
+    void battleStarted(Character player, Character opponent);
+
+    void attackResolved(Character attacker, Character defender, TurnResult result);
+
+    // Both listeners in order, skipping a null one
+    static BattleListener both(BattleListener first, BattleListener second) {
+        if (first == null) return second;
+        if (second == null) return first;
+        return new BattleListener() {
+            @Override
+            public void battleStarted(Character player, Character opponent) {
+                first.battleStarted(player, opponent);
+                second.battleStarted(player, opponent);
+            }
+
+            @Override
+            public void attackResolved(Character attacker, Character defender, TurnResult result) {
+                first.attackResolved(attacker, defender, result);
+                second.attackResolved(attacker, defender, result);
+            }
+        };
+    }
+}
@@ -0,0 +1,179 @@
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+// === CombatBenchmark Class ===
+// Baseline numbers for the combat hot paths. Each benchmark owns its loop so
+// the JIT sees one call target per loop. Results are folded into a sink that
+// is printed at the end, so the work cannot be optimised away.
+// Usage: java CombatBenchmark [nameFilter] [measureSeconds]
+public class CombatBenchmark {
+    interface Body {
+        long run(long ops);
+    }
+
+    private static class Benchmark {
+        final String name;
+        final Body body;
+
+        Benchmark(String name, Body body) {
+            this.name = name;
+            this.body = body;
+        }
+    }
+
+    private static final int WARMUP_ROUNDS = 3;
+    private static final int MEASURE_ROUNDS = 5;
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+        (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private static long sink;
+
+    static List<Benchmark> benchmarks() {
+        List<Benchmark> list = new ArrayList<>();
+        Rng rng = Rng.forMatch(42);
+        Rules rules = Rules.STANDARD;
+
+        list.add(new Benchmark("Dice.roll", ops -> {
+            long acc = 0;
+            for (long i = 0; i < ops; i++) acc += Dice.roll(rng);
+            return acc;
+        }));
+        list.add(new Benchmark("secondaryAttackDamage", ops -> {
+            long acc = 0;
+            for (long i = 0; i < ops; i++) acc += rules.secondaryAttackDamage((int) (i % 6) + 1);
+            return acc;
+        }));
+        list.add(new Benchmark("tertiaryAttackDamage", ops -> {
+            long acc = 0;
+            for (long i = 0; i < ops; i++) acc += rules.tertiaryAttackDamage((int) (i % 6) + 1);
+            return acc;
+        }));
+
+        for (int level = 1; level <= 5; level++) {
+            AttackPolicy policy = AttackPolicies.forLevel(level);
+            Opponent self = new Opponent("cat");
+            Player foe = new Player("dog");
+            list.add(new Benchmark("chooseOpponentAttack level " + level, ops -> {
+                long acc = 0;
+                for (long i = 0; i < ops; i++) {
+                    self.sp = (int) (i % 101);
+                    acc += policy.chooseAttack(self, foe, rng);
+                }
+                return acc;
+            }));
+        }
+
+        BattleEngine engine = new BattleEngine(rules, rng);
+        TurnResult result = new TurnResult();
+        Player player = new Player("dog");
+        Opponent opponent = new Opponent("cat");
+        list.add(new Benchmark("full turn", ops -> {
+            long acc = 0;
+            for (long i = 0; i < ops; i++) {
+                player.sp = player.maxSp;
+                opponent.hp = opponent.maxHp;
+                engine.resolveAttack(player, opponent, (int) (i % 3) + 1, result);
+                acc += result.dealt();
+            }
+            return acc;
+        }));
+        list.add(new Benchmark("full battle", ops -> {
+            long acc = 0;
+            for (long i = 0; i < ops; i++) {
+                player.hp = player.maxHp;
+                player.sp = player.maxSp;
+                opponent.hp = opponent.maxHp;
+                opponent.sp = opponent.maxSp;
+                acc += engine.runBattle(player, opponent, AttackPolicies.GREEDY, AttackPolicies.RANDOM);
+            }
+            return acc;
+        }));
+
+        list.add(new Benchmark("noDamageMessage", ops -> {
+            long acc = 0;
+            for (long i = 0; i < ops; i++) acc += Narration.noDamageMessage(rng, "dog").length();
+            return acc;
+        }));
+        list.add(new Benchmark("gruesomeAttackMessage", ops -> {
+            long acc = 0;
+            for (long i = 0; i < ops; i++) acc += Narration.gruesomeAttackMessage(rng, "dog", "cat").length();
+            return acc;
+        }));
+        StringBuilder buffer = new StringBuilder(256);
+        list.add(new Benchmark("ATTACK.appendTo buffer", ops -> {
+            long acc = 0;
+            for (long i = 0; i < ops; i++) {
+                buffer.setLength(0);
+                Narration.ATTACK.appendTo(buffer, rng, "dog", "cat");
+                acc += buffer.length();
+            }
+            return acc;
+        }));
+        list.add(new Benchmark("gruesomeVictoryMessage", ops -> {
+            long acc = 0;
+            for (long i = 0; i < ops; i++) acc += Narration.gruesomeVictoryMessage(rng, "dog", "cat").length();
+            return acc;
+        }));
+        list.add(new Benchmark("gruesomeDefeatMessage", ops -> {
+            long acc = 0;
+            for (long i = 0; i < ops; i++) acc += Narration.gruesomeDefeatMessage(rng, "cat", "dog").length();
+            return acc;
+        }));
+        return list;
+    }
+
+    public static void main(String[] args) {
+        String filter = args.length > 0 ? args[0] : "";
+        double seconds = args.length > 1 ? Double.parseDouble(args[1]) : 1.0;
+        long roundNanos = (long) (seconds * 1e9);
+
+        System.out.printf("%-30s %16s %12s %14s%n", "benchmark", "ops/s", "+/- %", "B/op");
+        for (Benchmark benchmark : benchmarks()) {
+            if (!benchmark.name.contains(filter)) continue;
+
+            // Grow the batch until one call takes about a tenth of a round
+            long batch = 1;
+            while (true) {
+                long start = System.nanoTime();
+                sink += benchmark.body.run(batch);
+                if (System.nanoTime() - start > roundNanos / 10) break;
+                batch *= 2;
+            }
+
+            for (int round = 0; round < WARMUP_ROUNDS; round++) {
+                measure(benchmark, batch, roundNanos);
+            }
+            double[] rates = new double[MEASURE_ROUNDS];
+            double bytesPerOp = 0;
+            for (int round = 0; round < MEASURE_ROUNDS; round++) {
+                double[] sample = measure(benchmark, batch, roundNanos);
+                rates[round] = sample[0];
+                bytesPerOp += sample[1] / MEASURE_ROUNDS;
+            }
+            double mean = 0;
+            for (double rate : rates) mean += rate / rates.length;
+            double variance = 0;
+            for (double rate : rates) variance += (rate - mean) * (rate - mean) / (rates.length - 1);
+            System.out.printf("%-30s %16.0f %11.1f%% %14.1f%n",
+                benchmark.name, mean, 100 * Math.sqrt(variance) / mean, bytesPerOp);
+        }
+        System.out.println("(sink " + sink + ")");
+    }
+
+    // Returns { ops per second, bytes allocated per op } for one round
+    private static double[] measure(Benchmark benchmark, long batch, long roundNanos) {
+        long ops = 0;
+        long allocatedBefore = THREADS.getCurrentThreadAllocatedBytes();
+        long start = System.nanoTime();
+        long elapsed;
+        do {
+            sink += benchmark.body.run(batch);
+            ops += batch;
+            elapsed = System.nanoTime() - start;
+        } while (elapsed < roundNanos);
+        long allocated = THREADS.getCurrentThreadAllocatedBytes() - allocatedBefore;
+        return new double[] { ops * 1e9 / elapsed, (double) allocated / ops };
+    }
+}
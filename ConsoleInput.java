@@ -0,0 +1,80 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+// === ConsoleInput Class ===
+// One background thread reads the stream and queues each line, so there is a
+// single buffer for the whole game. Every line can also be written to a recording.
+class ConsoleInput implements InputSource, Runnable {
+    private static final String END_OF_INPUT = new String("<eof>");
+
+    private final BufferedReader reader;
+    private final BlockingQueue<String> lines = new LinkedBlockingQueue<>();
+    private final Writer recorder;
+    private boolean closed;
+
+    ConsoleInput(InputStream in, Writer recorder) {
+        this.reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        this.recorder = recorder;
+        Thread thread = new Thread(this, "input-reader");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @Override
+    public void run() {
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lines.add(line);
+            }
+        } catch (IOException e) {
+            // Treated the same as the end of input
+        }
+        lines.add(END_OF_INPUT);
+    }
+
+    @Override
+    public String nextLine() {
+        if (closed) throw new InputClosedException();
+        String line;
+        try {
+            line = lines.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InputClosedException();
+        }
+        if (line == END_OF_INPUT) {
+            closed = true;
+            throw new InputClosedException();
+        }
+        record(line);
+        return line;
+    }
+
+    private void record(String line) {
+        if (recorder == null) return;
+        try {
+            recorder.write(line);
+            recorder.write('\n');
+            recorder.flush();
+        } catch (IOException e) {
+            UI.renderer().println("Error: Unable to write input recording: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public void close() {
+        if (recorder == null) return;
+        try {
+            recorder.close();
+        } catch (IOException e) {
+            // Nothing left to save
+        }
+    }
+}
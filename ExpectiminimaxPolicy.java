@@ -0,0 +1,188 @@
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+// === ExpectiminimaxPolicy Class ===
+// Search-based opponent for level 3 and up. Looks a few attacks ahead with
+// both sides playing to win, averaging over the dice roll and the slip
+// chance, and scores the positions it cannot see past with a cheap estimate.
+// Iterative deepening stops at the level's depth or when the per-move time
+// budget runs out, whichever comes first, and plays the best attack of the
+// deepest search that finished.
+class ExpectiminimaxPolicy implements AttackPolicy {
+    static final long DEFAULT_BUDGET_NANOS = 5_000_000L;
+    static final int MAX_DEPTH = 8;
+    private static final double ESTIMATE_SPREAD = 0.5; // a one-attack lead reads as about 88%
+
+    private final Rules rules;
+    private final int maxDepth;
+    private final long budgetNanos;
+    // Tables are lent out for one move at a time, so there are only ever as many
+    // as moves being searched at once, however many threads or sessions play
+    private final ConcurrentLinkedQueue<Search> idle = new ConcurrentLinkedQueue<>();
+
+    // Average damage per attack after slips, and SP per special attack after refunds
+    private final double baseDamage;
+    private double specialDamage;
+    private double specialNetCost;
+    private double specialDamagePerSp;
+
+    ExpectiminimaxPolicy(Rules rules, int maxDepth, long budgetNanos) {
+        this.rules = rules;
+        this.maxDepth = Math.max(1, Math.min(MAX_DEPTH, maxDepth));
+        this.budgetNanos = budgetNanos;
+
+        double hitChance = 1 - rules.slipPercent / 100.0;
+        double refundChance = Math.max(0, Math.min(6, 7 - rules.refundRoll)) / 6.0;
+        baseDamage = rules.baseDamage * hitChance;
+        for (int attack = Rules.SECONDARY_ATTACK; attack <= Rules.TERTIARY_ATTACK; attack++) {
+            double damage = 0;
+            for (int roll = 1; roll <= 6; roll++) damage += rules.damage(attack, roll) * hitChance / 6;
+            double netCost = rules.cost(attack) - refundChance * (rules.cost(attack) / 2);
+            if (damage / netCost > specialDamagePerSp) {
+                specialDamage = damage;
+                specialNetCost = netCost;
+                specialDamagePerSp = damage / netCost;
+            }
+        }
+    }
+
+    // Level 3 looks two attacks ahead, each level after that one more
+    static int depthForLevel(int level) {
+        return Math.max(1, Math.min(MAX_DEPTH, level - 1));
+    }
+
+    int maxDepth() {
+        return maxDepth;
+    }
+
+    @Override
+    public int chooseAttack(Character self, Character foe, Rng rng) {
+        if (!rules.canAfford(Rules.SECONDARY_ATTACK, self.sp) && !rules.canAfford(Rules.TERTIARY_ATTACK, self.sp)) {
+            return Rules.BASE_ATTACK;
+        }
+        Search search = idle.poll();
+        if (search == null) search = new Search();
+        try {
+            return search.choose(self.hp, self.sp, foe.hp, foe.sp);
+        } finally {
+            idle.offer(search);
+        }
+    }
+
+    // Rough chance that the side to move wins, from how many attacks each side
+    // needs to knock the other out, with half an attack's head start for the mover
+    private double estimate(int moverHp, int moverSp, int otherHp, int otherSp) {
+        double lead = attacksToKnockOut(otherSp, moverHp) - attacksToKnockOut(moverSp, otherHp) + 0.5;
+        return 1 / (1 + Math.exp(-lead / ESTIMATE_SPREAD));
+    }
+
+    // Spends SP on the best special attack first, then base attacks for the rest
+    private double attacksToKnockOut(int sp, int hp) {
+        double spDamage = sp * specialDamagePerSp;
+        if (spDamage >= hp) return hp / specialDamage;
+        return sp / specialNetCost + (hp - spDamage) / baseDamage;
+    }
+
+    private final class Search {
+        private static final int TABLE_BITS = 16;
+        private static final int MASK = (1 << TABLE_BITS) - 1;
+        private static final int CHECK_INTERVAL = 255;
+
+        // Transposition table: packed state -> value, valid for searches up to the stored depth
+        private final long[] keys = new long[1 << TABLE_BITS];
+        private final float[] values = new float[1 << TABLE_BITS];
+        private final byte[] depths = new byte[1 << TABLE_BITS];
+
+        private final double slip = rules.slipPercent / 100.0;
+        private final double refundChance = Math.max(0, Math.min(6, 7 - rules.refundRoll)) / 6.0;
+
+        private long deadline;
+        private int nodes;
+        private boolean outOfTime;
+
+        int choose(int hp, int sp, int foeHp, int foeSp) {
+            deadline = System.nanoTime() + budgetNanos;
+            outOfTime = false;
+            nodes = 0;
+            int best = Rules.BASE_ATTACK;
+            for (int depth = 1; depth <= maxDepth; depth++) {
+                int bestAtDepth = Rules.BASE_ATTACK;
+                double bestValue = -1;
+                for (int attack = Rules.TERTIARY_ATTACK; attack >= Rules.BASE_ATTACK; attack--) {
+                    if (!rules.canAfford(attack, sp)) continue;
+                    double value = attackValue(hp, sp, foeHp, foeSp, attack, depth);
+                    if (outOfTime) break;
+                    if (value > bestValue) {
+                        bestValue = value;
+                        bestAtDepth = attack;
+                    }
+                }
+                // A search cut short has only looked at some of the attacks
+                if (outOfTime) break;
+                best = bestAtDepth;
+            }
+            return best;
+        }
+
+        // Value for the side to move of its best attack, looking depth attacks ahead
+        private double search(int hp, int sp, int foeHp, int foeSp, int depth) {
+            if (depth == 0) return estimate(hp, sp, foeHp, foeSp);
+            if ((++nodes & CHECK_INTERVAL) == 0 && System.nanoTime() > deadline) outOfTime = true;
+            if (outOfTime) return 0;
+
+            long key = pack(hp, sp, foeHp, foeSp);
+            int slot = slot(key);
+            if (keys[slot] == key && depths[slot] >= depth) return values[slot];
+
+            double best = 0;
+            for (int attack = Rules.TERTIARY_ATTACK; attack >= Rules.BASE_ATTACK; attack--) {
+                if (!rules.canAfford(attack, sp)) continue;
+                best = Math.max(best, attackValue(hp, sp, foeHp, foeSp, attack, depth));
+            }
+            if (!outOfTime) {
+                keys[slot] = key;
+                values[slot] = (float) best;
+                depths[slot] = (byte) depth;
+            }
+            return best;
+        }
+
+        // Expected value of one attack over the dice and the slip, the foe replying after
+        private double attackValue(int hp, int sp, int foeHp, int foeSp, int attack, int depth) {
+            if (attack == Rules.BASE_ATTACK) {
+                double missed = 1 - search(foeHp, foeSp, hp, sp, depth - 1);
+                int hitHp = foeHp - rules.baseDamage;
+                double hit = hitHp <= 0 ? 1 : 1 - search(hitHp, foeSp, hp, bonus(foeHp, hitHp, sp), depth - 1);
+                return slip * missed + (1 - slip) * hit;
+            }
+            int cost = rules.cost(attack);
+            double value = 0;
+            // A slip only depends on whether the roll earned the refund
+            if (refundChance < 1) value += slip * (1 - refundChance) * (1 - search(foeHp, foeSp, hp, sp - cost, depth - 1));
+            if (refundChance > 0) value += slip * refundChance * (1 - search(foeHp, foeSp, hp, sp - cost + cost / 2, depth - 1));
+            for (int roll = 1; roll <= 6; roll++) {
+                int paid = sp - cost + (roll >= rules.refundRoll ? cost / 2 : 0);
+                int hitHp = foeHp - rules.damage(attack, roll);
+                double hit = hitHp <= 0 ? 1 : 1 - search(hitHp, foeSp, hp, bonus(foeHp, hitHp, paid), depth - 1);
+                value += (1 - slip) / 6 * hit;
+            }
+            return value;
+        }
+
+        private int bonus(int hpBefore, int hpAfter, int sp) {
+            if (hpBefore >= rules.bonusHpThreshold && hpAfter < rules.bonusHpThreshold && sp < rules.spCap) {
+                return sp + Math.min(rules.bonusSp, rules.spCap - sp);
+            }
+            return sp;
+        }
+
+        // 16 bits per field covers story mode's boosted stats; never zero, so empty slots never match
+        private long pack(int hp, int sp, int foeHp, int foeSp) {
+            return ((long) hp << 48 | (long) (sp & 0xffff) << 32 | (long) (foeHp & 0xffff) << 16 | foeSp & 0xffff) + 1;
+        }
+
+        private int slot(long key) {
+            long mixed = key * 0x9e3779b97f4a7c15L;
+            return (int) (mixed >>> (64 - TABLE_BITS)) & MASK;
+        }
+    }
+}
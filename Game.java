@@ -2,10 +2,13 @@ import java.util.*;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
-import java.util.Random;
-import java.util.Scanner;
 import javax.sound.sampled.*;
 import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 
 // === Character Class ===
 class Character {
@@ -49,62 +52,355 @@ class Opponent extends Character {
 
 // === Dice Class ===
 class Dice {
-    private static final Random random = new Random();
+    public static int roll(Rng rng) {
+        return rng.nextInt(6) + 1; // 1 to 6
+    }
+}
+
+// === PcmSound Class ===
+// A WAV file decoded once into memory
+class PcmSound {
+    final AudioFormat format;
+    final byte[] data;
+    private short[] samples;
 
-    public static int roll() {
-        return random.nextInt(6) + 1; // 1 to 6
+    PcmSound(AudioFormat format, byte[] data) {
+        this.format = format;
+        this.data = data;
+    }
+
+    // Decodes to the mixer's format where Java Sound can convert, otherwise to 16-bit PCM
+    static PcmSound decode(AudioInputStream audioStream) throws Exception {
+        try (AudioInputStream source = audioStream) {
+            AudioInputStream pcm = source;
+            AudioFormat format = source.getFormat();
+            if (!format.matches(AudioMixer.FORMAT)) {
+                format = AudioSystem.isConversionSupported(AudioMixer.FORMAT, format)
+                    ? AudioMixer.FORMAT
+                    : new AudioFormat(format.getSampleRate(), 16, format.getChannels(), true, false);
+                pcm = AudioSystem.getAudioInputStream(format, source);
+            }
+            return new PcmSound(format, pcm.readAllBytes());
+        }
+    }
+
+    boolean isMixable() {
+        return format.matches(AudioMixer.FORMAT);
+    }
+
+    // Little-endian bytes as interleaved samples for the mixer
+    short[] samples() {
+        if (samples == null) {
+            short[] converted = new short[data.length / 2];
+            for (int i = 0; i < converted.length; i++) {
+                converted[i] = (short) ((data[2 * i] & 0xff) | (data[2 * i + 1] << 8));
+            }
+            samples = converted;
+        }
+        return samples;
+    }
+}
+
+// === ClipPool Class ===
+// A few pre-opened Clips for one effect, rewound and reused in turn
+class ClipPool {
+    private final Clip[] clips;
+    private int next;
+
+    ClipPool(PcmSound sound, int size) throws LineUnavailableException {
+        clips = new Clip[size];
+        try {
+            for (int i = 0; i < size; i++) {
+                clips[i] = AudioSystem.getClip();
+                clips[i].open(sound.format, sound.data, 0, sound.data.length);
+            }
+        } catch (LineUnavailableException | RuntimeException e) {
+            close();
+            throw e;
+        }
+    }
+
+    // Prefers an idle clip, otherwise takes over the oldest one
+    Clip acquire() {
+        for (int i = 0; i < clips.length; i++) {
+            Clip clip = clips[(next + i) % clips.length];
+            if (!clip.isRunning()) {
+                next = (next + i + 1) % clips.length;
+                return clip;
+            }
+        }
+        Clip clip = clips[next];
+        next = (next + 1) % clips.length;
+        clip.stop();
+        return clip;
+    }
+
+    void close() {
+        for (Clip clip : clips) {
+            if (clip != null) clip.close();
+        }
     }
 }
 
 // === AudioManager Class ===
+// Sounds are referred to by asset id. They come from the memory-mapped
+// assets.ffab bundle when there is one, otherwise from loose <id>.wav files.
+// Java Sound is set up on a background thread so the menu never waits for it.
+// Until it is ready effects are skipped and the latest music request is kept
+// and started once it is. Without any sound device the manager stays silent.
 class AudioManager {
-    private Clip backgroundClip; // For background music
-    private Clip sfxClip;        // For short sound effects
+    static final String MENU_SELECT = "menu_select";
+    static final String VICTORY = "victory";
+    static final String DEFEAT = "defeat";
+    static final String MENU_MUSIC = "menu_music";
+    static final String GAMEPLAY_MUSIC = "gameplay_music";
 
-    public void playBackground(String filePath, float volume) {
-        stopBackground();
+    static final String[] SFX_IDS = { MENU_SELECT, VICTORY, DEFEAT };
+    static final String[] ALL_ASSETS = { MENU_SELECT, VICTORY, DEFEAT, MENU_MUSIC, GAMEPLAY_MUSIC };
+    private static final int CLIPS_PER_EFFECT = 3;
+
+    private Clip backgroundClip; // For background music, only used without the mixer
+    private Clip sfxClip;        // For short sound effects, only used without the mixer
+    private AudioMixer mixer;    // Mixes overlapping effects on its own thread
+    private AssetBundle bundle;
+
+    private final Map<String, PcmSound> pcmCache = new HashMap<>();
+    private final Map<String, ClipPool> sfxPools = new HashMap<>();
+    private final Map<String, String> sfxErrors = new HashMap<>();
+
+    private final boolean enabled;
+
+    // Everything above is filled in by the audio-init thread before ready is set
+    private final Object startup = new Object();
+    private final Thread init;
+    private volatile boolean ready;
+    private boolean available = true; // false when no line or clip can be opened
+    private boolean closed;
+    private String pendingMusic;
+    private float pendingVolume;
+
+    public AudioManager() {
+        this(true);
+    }
+
+    // A disabled manager plays nothing and never touches Java Sound, for automated runs
+    public AudioManager(boolean enabled) {
+        this.enabled = enabled;
+        if (!enabled) {
+            init = null;
+            return;
+        }
+        init = new Thread(this::initialize, "audio-init");
+        init.setDaemon(true);
+        init.start();
+    }
+
+    private void initialize() {
+        bundle = AssetBundle.openDefault();
+        Metrics.AudioOpenEvent span = Metrics.ENABLED ? new Metrics.AudioOpenEvent() : null;
         try {
-            File audioFile = new File(filePath);
-            if (!audioFile.exists()) {
-                System.out.println("Error: Audio file not found: " + filePath);
-                return;
+            mixer = AudioMixer.start();
+        } catch (Exception e) {
+            mixer = null; // No streaming line, fall back to pooled Clips
+        }
+        if (span != null) {
+            span.asset = "mixer";
+            span.end(Metrics.AUDIO_OPEN);
+        }
+        if (mixer != null || canOpenClip()) {
+            preloadSFX();
+        } else {
+            available = false;
+        }
+        synchronized (startup) {
+            if (closed) {
+                release();
+            } else if (available && pendingMusic != null) {
+                startBackground(pendingMusic, pendingVolume);
+            }
+            ready = true;
+        }
+    }
+
+    private static boolean canOpenClip() {
+        try {
+            AudioSystem.getClip().close();
+            return true;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    // Keeps a music request for the init thread, false once audio is ready and it should just be played
+    private boolean deferMusic(String id, float volume) {
+        synchronized (startup) {
+            if (ready) return false;
+            pendingMusic = id;
+            pendingVolume = volume;
+            return true;
+        }
+    }
+
+    private boolean live() {
+        return ready && available;
+    }
+
+    // Waits for the init thread, true when sound can be played
+    boolean awaitReady(long millis) throws InterruptedException {
+        if (!enabled) return false;
+        init.join(millis);
+        return live();
+    }
+
+    // Decodes every effect and opens its clips up front so a keypress only has to rewind one
+    public void preloadSFX() {
+        for (String id : SFX_IDS) {
+            loadSFX(id);
+        }
+    }
+
+    private boolean hasAsset(String id) {
+        return bundle != null && bundle.contains(id) || new File(id + ".wav").exists();
+    }
+
+    private AudioInputStream openAsset(String id) throws Exception {
+        if (bundle != null && bundle.contains(id)) {
+            return AudioSystem.getAudioInputStream(bundle.openStream(id));
+        }
+        return AudioSystem.getAudioInputStream(new File(id + ".wav"));
+    }
+
+    private ClipPool loadSFX(String id) {
+        Metrics.AudioOpenEvent span = Metrics.ENABLED ? new Metrics.AudioOpenEvent() : null;
+        try {
+            if (!hasAsset(id)) {
+                sfxErrors.put(id, "Error: Audio file not found: " + id);
+                return null;
+            }
+            PcmSound sound = PcmSound.decode(openAsset(id));
+            pcmCache.put(id, sound);
+            if (mixer != null && sound.isMixable()) {
+                sound.samples();
+                return null;
+            }
+            ClipPool pool = new ClipPool(sound, CLIPS_PER_EFFECT);
+            sfxPools.put(id, pool);
+            return pool;
+        } catch (Exception e) {
+            sfxErrors.put(id, "Error: Unable to play audio: " + id);
+            return null;
+        } finally {
+            if (span != null) {
+                span.asset = id;
+                span.end(Metrics.AUDIO_OPEN);
+                if (sfxErrors.containsKey(id)) Metrics.AUDIO_ERRORS.increment();
             }
-            AudioInputStream audioStream = AudioSystem.getAudioInputStream(audioFile);
+        }
+    }
+
+    public void playBackground(String id, float volume) {
+        if (!enabled) return;
+        if (!ready && deferMusic(id, volume)) return;
+        if (available) startBackground(id, volume);
+    }
+
+    private void startBackground(String id, float volume) {
+        if (!hasAsset(id)) {
+            reportError("Error: Audio file not found: " + id);
+            if (Metrics.ENABLED) Metrics.AUDIO_ERRORS.increment();
+            return;
+        }
+        if (mixer != null) {
+            // Streamed and crossfaded with whatever track was playing
+            Metrics.AudioStartEvent span = Metrics.ENABLED ? new Metrics.AudioStartEvent() : null;
+            MusicStream stream = MusicStream.start(id, () -> openAsset(id));
+            mixer.playMusic(stream, volume, AudioMixer.CROSSFADE_FRAMES);
+            endAudioStart(span, id);
+            return;
+        }
+
+        stopBackground();
+        try {
+            Metrics.AudioOpenEvent open = Metrics.ENABLED ? new Metrics.AudioOpenEvent() : null;
+            AudioInputStream audioStream = openAsset(id);
             backgroundClip = AudioSystem.getClip();
             backgroundClip.open(audioStream);
+            if (open != null) {
+                open.asset = id;
+                open.end(Metrics.AUDIO_OPEN);
+            }
+            Metrics.AudioStartEvent start = Metrics.ENABLED ? new Metrics.AudioStartEvent() : null;
             setClipVolume(backgroundClip, volume);
             backgroundClip.loop(Clip.LOOP_CONTINUOUSLY);
             backgroundClip.start();
+            endAudioStart(start, id);
         } catch (Exception e) {
-            System.out.println("Error: Unable to play audio: " + filePath);
+            reportError("Error: Unable to play audio: " + id);
+            if (Metrics.ENABLED) Metrics.AUDIO_ERRORS.increment();
         }
     }
 
     public void setBackgroundVolume(float volume) {
+        if (!enabled) return;
+        if (!ready && deferMusic(pendingMusic, volume)) return;
+        if (mixer != null) {
+            mixer.setMusicGain(volume);
+        }
         if (backgroundClip != null && backgroundClip.isOpen()) {
             setClipVolume(backgroundClip, volume);
         }
     }
 
-    public void playSFX(String filePath, float volume) {
+    public void playSFX(String id, float volume) {
+        if (!enabled || !live()) return;
+        if (!pcmCache.containsKey(id) && !sfxErrors.containsKey(id)) {
+            loadSFX(id);
+        }
+        Metrics.AudioStartEvent span = Metrics.ENABLED ? new Metrics.AudioStartEvent() : null;
+        PcmSound sound = pcmCache.get(id);
+        if (mixer != null && sound != null && sound.isMixable()) {
+            // Overlaps whatever is already playing instead of cutting it off
+            mixer.play(sound.samples(), volume, AudioMixer.GROUP_SFX);
+            endAudioStart(span, id);
+            return;
+        }
+
         stopSFX();
+        ClipPool pool = sfxPools.get(id);
+        if (pool == null) {
+            reportError(sfxErrors.get(id));
+            if (Metrics.ENABLED) Metrics.AUDIO_ERRORS.increment();
+            return;
+        }
         try {
-            File audioFile = new File(filePath);
-            if (!audioFile.exists()) {
-                System.out.println("Error: Audio file not found: " + filePath);
-                return;
-            }
-            AudioInputStream audioStream = AudioSystem.getAudioInputStream(audioFile);
-            sfxClip = AudioSystem.getClip();
-            sfxClip.open(audioStream);
+            sfxClip = pool.acquire();
+            sfxClip.setFramePosition(0);
             setClipVolume(sfxClip, volume);
             sfxClip.start();
+            endAudioStart(span, id);
         } catch (Exception e) {
-            System.out.println("Error: Unable to play audio: " + filePath);
+            reportError("Error: Unable to play audio: " + id);
+            if (Metrics.ENABLED) Metrics.AUDIO_ERRORS.increment();
         }
     }
 
+    // To stderr rather than the game's renderer: deferred music starts on the audio-init thread
+    private static void reportError(String message) {
+        System.err.println(message);
+    }
+
+    private static void endAudioStart(Metrics.AudioStartEvent span, String id) {
+        if (span == null) return;
+        span.asset = id;
+        span.end(Metrics.AUDIO_START);
+    }
+
     public void stopBackground() {
+        if (!enabled) return;
+        if (!ready && deferMusic(null, 0)) return;
+        if (mixer != null) {
+            mixer.stopMusic(AudioMixer.CROSSFADE_FRAMES);
+        }
         if (backgroundClip != null && backgroundClip.isRunning()) {
             backgroundClip.stop();
             backgroundClip.close();
@@ -113,10 +409,47 @@ class AudioManager {
     }
 
     public void stopSFX() {
+        if (!live()) return;
+        if (mixer != null) {
+            mixer.stopGroup(AudioMixer.GROUP_SFX);
+        }
+        // Pooled clips stay open, they are only rewound on the next play
         if (sfxClip != null && sfxClip.isRunning()) {
             sfxClip.stop();
-            sfxClip.close();
-            sfxClip = null;
+        }
+        sfxClip = null;
+    }
+
+    Clip currentSFX() {
+        return live() ? sfxClip : null;
+    }
+
+    AudioMixer mixer() {
+        return live() ? mixer : null;
+    }
+
+    public void close() {
+        if (!enabled) return;
+        synchronized (startup) {
+            if (!ready) {
+                // The init thread lets go of whatever it opened when it finishes
+                closed = true;
+                return;
+            }
+        }
+        release();
+    }
+
+    private void release() {
+        stopBackground();
+        stopSFX();
+        for (ClipPool pool : sfxPools.values()) {
+            pool.close();
+        }
+        sfxPools.clear();
+        if (mixer != null) {
+            mixer.shutdown();
+            mixer = null;
         }
     }
 
@@ -127,15 +460,64 @@ class AudioManager {
 }
 
 // === UI Class ===
+// Prompts and output for whichever session the calling thread is playing.
+// Threads share the console's session unless they bind their own, which is
+// how the match server gives every connection its own input and output.
 class UI {
-    private static AudioManager audioManagerReference;
+    static final class Session {
+        private AudioManager audioManager;
+        private InputSource input;
+        private Renderer renderer;
+
+        Session(AudioManager audioManager, InputSource input, Renderer renderer) {
+            this.audioManager = audioManager;
+            this.input = input;
+            this.renderer = renderer;
+        }
+    }
+
+    private static final Session CONSOLE = new Session(null, null, null);
+    private static final ThreadLocal<Session> CURRENT = ThreadLocal.withInitial(() -> CONSOLE);
+
+    // Everything this thread does through UI goes to the session until unbind()
+    static void bind(Session session) {
+        CURRENT.set(session);
+    }
+
+    static void unbind() {
+        CURRENT.remove();
+    }
 
     public static void setAudioManager(AudioManager am) {
-        audioManagerReference = am;
+        CURRENT.get().audioManager = am;
+    }
+
+    public static void setInput(InputSource source) {
+        CURRENT.get().input = source;
+    }
+
+    public static void setRenderer(Renderer r) {
+        CURRENT.get().renderer = r;
+    }
+
+    public static Renderer renderer() {
+        Session session = CURRENT.get();
+        if (session.renderer == null) {
+            session.renderer = Renderer.console(Renderer.Mode.PLAIN);
+        }
+        return session.renderer;
+    }
+
+    private static InputSource input() {
+        Session session = CURRENT.get();
+        if (session.input == null) {
+            session.input = new ConsoleInput(System.in, null);
+        }
+        return session.input;
     }
 
     public static void displayTitleScreen() {
-        System.out.println("\n" +
+        renderer().println("\n" +
             "====================================\n" +
             "     WELCOME TO FURRY FISTS!\n" +
             "====================================\n"
@@ -143,309 +525,511 @@ class UI {
     }
 
     public static void displayMessage(String message) {
-        System.out.println("\n" + message + "\n");
+        renderer().println("\n" + message + "\n");
+    }
+
+    // Prompts until a number from min to max is entered, every number typed gets the menu click
+    private static int readNumber(String prompt, int min, int max) {
+        while (true) {
+            renderer().print(prompt);
+            renderer().flush();
+            if (Metrics.ENABLED) Metrics.promptShown();
+            Metrics.InputEvent span = Metrics.ENABLED ? new Metrics.InputEvent() : null;
+            String line = input().nextLine().trim();
+            if (span != null) span.end(Metrics.INPUT_WAIT);
+            int number;
+            try {
+                number = Integer.parseInt(line);
+            } catch (NumberFormatException e) {
+                continue;
+            }
+            CURRENT.get().audioManager.playSFX(AudioManager.MENU_SELECT, -10.0f);
+            if (number >= min && number <= max) {
+                return number;
+            }
+        }
     }
 
     public static int getPlayerChoice(String[] options) {
-        System.out.println("Choose an option:");
+        renderer().println("Choose an option:");
         for (int i = 0; i < options.length; i++) {
-            System.out.println((i + 1) + ". " + options[i]);
+            renderer().println((i + 1) + ". " + options[i]);
         }
+        return readNumber("Enter the number of your choice: ", 1, options.length) - 1;
+    }
 
-        Scanner scanner = new Scanner(System.in);
-        int choice = -1;
-        while (choice < 1 || choice > options.length) {
-            System.out.print("Enter the number of your choice: ");
-            if (scanner.hasNextInt()) {
-                choice = scanner.nextInt();
-                audioManagerReference.playSFX("menu_select.wav", -10.0f);
-            } else {
-                scanner.next();
-            }
-        }
-        return choice - 1;
+    public static int getNumber(String prompt, int min, int max) {
+        return readNumber(prompt, min, max);
     }
 
     public static int getVolumeChoice() {
-        System.out.println("Enter a volume level (1 to 10): ");
-        Scanner scanner = new Scanner(System.in);
-        int volume = -1;
-        while (volume < 1 || volume > 10) {
-            System.out.print("Enter a volume level between 1 and 10: ");
-            if (scanner.hasNextInt()) {
-                volume = scanner.nextInt();
-                audioManagerReference.playSFX("menu_select.wav", -10.0f);
-            } else {
-                scanner.next();
-            }
-        }
-        return volume;
+        renderer().println("Enter a volume level (1 to 10): ");
+        return readNumber("Enter a volume level between 1 and 10: ", 1, 10);
     }
 
     public static int getAttackChoice(Player player, Opponent opponent) {
-        Scanner scanner = new Scanner(System.in);
-        int choice = -1;
-        System.out.println("\n" + player.name + "'s Turn! Choose your attack:");
-        System.out.println("1. Base Attack (5 DMG, 0 SP)");
-        System.out.println("2. Secondary Attack (Dice DMG, costs 25 SP)");
-        System.out.println("3. Tertiary Attack (Dice DMG, costs 50 SP)");
-        System.out.println("Your HP: " + player.hp + " | Your SP: " + player.sp);
-        System.out.println(opponent.name + "'s HP: " + opponent.hp + " | " + opponent.name + "'s SP: " + opponent.sp);
-
-        while (choice < 1 || choice > 3) {
-            System.out.print("Enter the number of your choice: ");
-            if (scanner.hasNextInt()) {
-                choice = scanner.nextInt();
-                audioManagerReference.playSFX("menu_select.wav", -10.0f);
-            } else {
-                scanner.next();
-            }
+        return getAttackChoice(player, opponent, false);
+    }
+
+    // With offerAuto the ladder's auto-battle is choice 4
+    public static int getAttackChoice(Player player, Opponent opponent, boolean offerAuto) {
+        renderer().println("\n" + player.name + "'s Turn! Choose your attack:");
+        renderer().println("1. Base Attack (5 DMG, 0 SP)");
+        renderer().println("2. Secondary Attack (Dice DMG, costs 25 SP)");
+        renderer().println("3. Tertiary Attack (Dice DMG, costs 50 SP)");
+        if (offerAuto) renderer().println("4. Auto-battle");
+        if (renderer().pinsStatus()) {
+            renderer().status(player, opponent);
+        } else {
+            renderer().println("Your HP: " + player.hp + " | Your SP: " + player.sp);
+            renderer().println(opponent.name + "'s HP: " + opponent.hp + " | " + opponent.name + "'s SP: " + opponent.sp);
         }
-        return choice;
+        return readNumber("Enter the number of your choice: ", 1, offerAuto ? 4 : 3);
     }
 
     public static void waitForEnter(String message) {
-        System.out.println(message);
-        Scanner scanner = new Scanner(System.in);
-        scanner.nextLine();
+        renderer().println(message);
+        renderer().flush();
+        input().nextLine();
     }
 
     public static String chooseCharacter(String prompt, List<String> characters) {
-        Scanner scanner = new Scanner(System.in);
-        System.out.println(prompt);
+        renderer().println(prompt);
         for (int i = 0; i < characters.size(); i++) {
-            System.out.println((i+1) + ". " + characters.get(i));
+            renderer().println((i+1) + ". " + characters.get(i));
         }
+        return characters.get(readNumber("Enter the number of your choice: ", 1, characters.size()) - 1);
+    }
 
-        int choice = -1;
-        while (choice < 1 || choice > characters.size()) {
-            System.out.print("Enter the number of your choice: ");
-            if (scanner.hasNextInt()) {
-                choice = scanner.nextInt();
-                audioManagerReference.playSFX("menu_select.wav", -10.0f);
-            } else {
-                scanner.next();
-            }
+    public static int postVictoryChoice() {
+        String[] options = { "Next Level", "Main Menu", "Quit" };
+        return getPlayerChoice(options);
+    }
+
+    public static int postDefeatChoice() {
+        String[] options = { "Replay Level", "Main Menu", "Quit" };
+        return getPlayerChoice(options);
+    }
+}
+
+// === Game Class ===
+public class Game {
+    // Where a session is. start() steps from one screen to the next in a loop,
+    // so replaying or climbing any number of levels never deepens the stack.
+    enum Screen { MAIN_MENU, SETUP, LADDER_SETUP, BATTLE, VICTORY, DEFEAT, QUIT }
+
+    private static final String[] MENU_OPTIONS = { "Start Game", "Endless Ladder", "Story Mode", "Tournament", "Adjust Audio", "Quit" };
+
+    private Player player;
+    private Opponent opponent;
+    private AudioManager audioManager;
+    private final Renderer out;
+
+    static final List<String> ALL_CHARACTERS = Arrays.asList("dog", "cat", "dolphin", "rat", "wolf", "panda", "goat", "sloth");
+    private int level = 1;
+
+    private float currentVolume = -10.0f;
+
+    private final Rng rng;
+    private final BattleEngine engine;
+    private final TurnResult turnResult = new TurnResult();
+    private boolean showWinChance;
+
+    // Endless ladder, and the auto-battle strategy while it is switched on
+    private boolean ladder;
+    private AttackPolicy autoPolicy;
+    private int autoStopLevel;
+    private final Ladder.Progress autoProgress = new Ladder.Progress();
+
+    private static final String[] STORY_OPPONENTS = { "sloth", "rat", "wolf", "cat" };
+    private int storyStage = -1; // index into STORY_OPPONENTS while the story is on
+
+    // Saved at every decision point when set; resume is the save found at startup
+    private SaveWriter saves;
+    private SaveGame resume;
+    private int savedScreen = SaveGame.IN_BATTLE;
+
+    public Game() {
+        this(Rng.forMatch(), new AudioManager());
+    }
+
+    public Game(Rng rng, AudioManager audioManager) {
+        this.rng = rng;
+        engine = new BattleEngine(Rules.STANDARD, rng);
+        this.audioManager = audioManager;
+        this.out = UI.renderer();
+        UI.setAudioManager(audioManager);
+    }
+
+    public void start() {
+        UI.displayTitleScreen();
+        audioManager.playBackground(AudioManager.MENU_MUSIC, currentVolume);
+
+        Screen screen = Screen.MAIN_MENU;
+        while (screen != Screen.QUIT) {
+            screen = step(screen);
         }
-        return characters.get(choice - 1);
+        audioManager.close();
+        out.close();
     }
-    
-        public static int postVictoryChoice() {
-            // TODO Auto-generated method stub
-            throw new UnsupportedOperationException("Unimplemented method 'postVictoryChoice'");
+
+    // Runs one screen and returns the one to show next
+    Screen step(Screen screen) {
+        switch (screen) {
+            case MAIN_MENU:
+                return mainMenu();
+            case SETUP:
+                return setupGame();
+            case LADDER_SETUP:
+                return setupLadder();
+            case BATTLE:
+                return playGame();
+            case VICTORY:
+                return afterVictory();
+            case DEFEAT:
+                return afterDefeat();
+            default:
+                return Screen.QUIT;
         }
-        
-                public static int postDefeatChoice() {
-                    // TODO Auto-genera
-                    throw new UnsupportedOperationException("Unimplemented method 'postDefeatChoice'");
-                }
+    }
+
+    private Screen mainMenu() {
+        if (resume != null) {
+            String[] options = new String[MENU_OPTIONS.length + 1];
+            options[0] = "Continue";
+            System.arraycopy(MENU_OPTIONS, 0, options, 1, MENU_OPTIONS.length);
+            int choice = UI.getPlayerChoice(options);
+            if (choice == 0) return continueGame();
+            resume = null;
+            return mainMenu(choice - 1);
+        }
+        return mainMenu(UI.getPlayerChoice(MENU_OPTIONS));
+    }
+
+    private Screen mainMenu(int choice) {
+        switch (choice) {
+            case 0:
+                return Screen.SETUP;
+            case 1:
+                return Screen.LADDER_SETUP;
+            case 2:
+                startStoryMode();
+                break;
+            case 3:
+                runTournament();
+                break;
+            case 4:
+                adjustAudio();
+                break;
+            case 5:
+                return Screen.QUIT;
+        }
+        return Screen.MAIN_MENU;
+    }
+
+    public void startStoryMode() {
+        out.println("_____________________________________________________________________");
+        out.println("                     Welcome to Story Mode! \n\nYour the brave dog who has taken on the kings quest to go defeat \nthe horrible cat. While looking for the cat you come across");
+        out.print("her three henchman and you must defeat them before you can defeat \nthe stupid gross cat that has not really done anything wront but \nwe just dont like cats.");
+        out.println("Oh yeah you also lost you ability to heal \nso be carful but you have some extra health. Now go defeat her \nfriends, I mean her henchman.\n");
+
+        player = new Player("dog");
+        player.hp = player.maxHp * 2;
+        player.sp = player.maxSp * 3;
+        storyStage = 0;
+        opponent = storyOpponent(storyStage);
+        playStory(false);
+    }
+
+    private static Opponent storyOpponent(int stage) {
+        Opponent opponent = new Opponent(STORY_OPPONENTS[stage]);
+        if (stage == STORY_OPPONENTS.length - 1) opponent.hp = opponent.maxHp * 2;
+        return opponent;
+    }
+
+    // Plays from the current stage to the end of the story, the dog carrying its HP and SP along
+    private void playStory(boolean resumed) {
+        ladder = false;
+        int finalStage = STORY_OPPONENTS.length - 1;
+        while (true) {
+            if (storyStage == finalStage && !resumed) {
+                out.println("You have reached the final battle against the dumb cat that no one likes. Shes pretty dumb so you should be able to handle this. I hope.");
             }
-            
-            // === Game Class ===
-            public class Game {
-                private Player player;
-                private Opponent opponent;
-                private AudioManager audioManager;
-                private Scanner scanner = new Scanner(System.in);
-            
-                private static final List<String> ALL_CHARACTERS = Arrays.asList("dog", "cat", "dolphin", "rat", "wolf", "panda", "goat", "sloth");
-                private int level = 1;
-            
-                private float currentVolume = -10.0f;
-            
-                public Game() {
-                    audioManager = new AudioManager();
-                    UI.setAudioManager(audioManager);
-                }
-            
-                public void start() {
-                    UI.displayTitleScreen();
-                    audioManager.playBackground("menu_music.wav", currentVolume);
-            
-                    while (true) {
-                        String[] menuOptions = { "Start Game", "Story Mode", "Adjust Audio", "Quit" };
-                        int choice = UI.getPlayerChoice(menuOptions);
-                        switch (choice) {
-                            case 0:
-                                setupGame();
-                                break;
-                            case 1:
-                                startStoryMode();
-                                break;
-                            case 2:
-                                adjustAudio();
-                                break;
-                            case 3:
-                                System.exit(0);
-                        }
-                    }
-                }
-            
-                public void startStoryMode() {
-                    System.out.println("_____________________________________________________________________");
-                    System.out.println("                     Welcome to Story Mode! \n\nYour the brave dog who has taken on the kings quest to go defeat \nthe horrible cat. While looking for the cat you come across");
-                    System.out.print("her three henchman and you must defeat them before you can defeat \nthe stupid gross cat that has not really done anything wront but \nwe just dont like cats.");
-                    System.out.println("Oh yeah you also lost you ability to heal \nso be carful but you have some extra health. Now go defeat her \nfriends, I mean her henchman.\n");
-            
-                    Player dog = new Player("dog");
-                    dog.hp = dog.maxHp * 2;
-                    dog.sp = dog.maxSp * 3;
-            
-                    Opponent sloth = new Opponent("sloth");
-                    Opponent rat = new Opponent("rat");
-                    Opponent wolf = new Opponent("wolf");
-                    Opponent cat = new Opponent("cat");
-                    cat.hp = cat.maxHp * 2;
-            
-                    if (playStoryBattle(dog, sloth, "sloth") &&
-                        playStoryBattle(dog, rat, "rat") &&
-                        playStoryBattle(dog, wolf, "wolf")) {
-                        System.out.println("You have reached the final battle against the dumb cat that no one likes. Shes pretty dumb so you should be able to handle this. I hope.");
-                        if (playStoryBattle(dog, cat, "cat")) {
-                            System.out.println("Congratulations! You have just obliterated the cat for absolutly no reason, well one reason, no one likes cats.");
-                        } else {
-                            System.out.println("You were defeated by the dumb cat. Try again, and this time play smarter.");
-                        }
-                    } else {
-                        System.out.println("Come on you lost!? I did not think it was that hard. Restart Story Mode to try again.");
-                    }
-                }
-            
-                private boolean playStoryBattle(Player player, Opponent opponent, String opponentName) {
-                    System.out.println("You are battling the " + opponentName + "!");
-            
-                    while (player.isAlive() && opponent.isAlive()) {
-                        int choice = UI.getAttackChoice(player, opponent);
-                        int damage = 0;
-                        switch (choice) {
-                            case 1:
-                                damage = 5;
-                                break;
-                            case 2:
-                                if (player.sp >= 25) {
-                                    damage = Dice.roll();
-                                    player.reduceSp(25);
-                                } else {
-                                    System.out.println("Not enough SP! Using Base Attack.");
-                                    damage = 5;
-                                }
-                                break;
-                            case 3:
-                                if (player.sp >= 50) {
-                                    damage = Dice.roll() * 2;
-                                    player.reduceSp(50);
-                                } else {
-                                    System.out.println("Not enough SP! Using Base Attack.");
-                                    damage = 5;
-                                }
-                                break;
-                        }
-                        opponent.reduceHp(damage);
-            
-                        if (!opponent.isAlive()) {
-                            System.out.println("You defeated the " + opponentName + "!");
-                            break;
-                        }
-            
-                        int oppDamage = Dice.roll() * 2;
-                        player.reduceHp(oppDamage);
-                        System.out.println("The " + opponentName + " attacked and dealt " + oppDamage + " damage!");
-                    }
-            
-                    return player.isAlive();
-                }
-            
-                public void setupGame() {
-                    List<String> availableChars = new ArrayList<>(ALL_CHARACTERS);
-                    String playerChar = UI.chooseCharacter("Choose your character:", availableChars);
-                    player = new Player(playerChar);
-                    availableChars.remove(playerChar);
-            
-                    String opponentChar = UI.chooseCharacter("Choose your opponent:", availableChars);
-                    opponent = new Opponent(opponentChar);
-            
-                    level = 1;
-                    startGame();
-                }
-            
-                public void adjustAudio() {
-                    int volumeChoice = UI.getVolumeChoice();
-                    currentVolume = convertVolumeToDecibel(volumeChoice);
-                    audioManager.setBackgroundVolume(currentVolume);
-                }
-            
-                public void startGame() {
-                    audioManager.stopBackground();
-                    audioManager.playBackground("gameplay_music.wav", currentVolume);
-                    playGame();
-                }
-            
-                public void playGame() {
-                    while (player.isAlive() && opponent.isAlive()) {
-                        playerTurn();
-                        if (!opponent.isAlive()) break;
-                        opponentTurn();
-                    }
-                    endGame();
-                }
-            
-            
-            
-            
-            
-                private void endGame() {
-                    if (!player.isAlive()) {
-                        // Stop gameplay music before playing defeat SFX
-                        audioManager.stopBackground();
-                        System.out.println(gruesomeDefeatMessage(opponent.name, player.name));
-                        audioManager.playSFX("defeat.wav", -5.0f);
-                        int choice = UI.postDefeatChoice();
-                audioManager.stopSFX();
-                switch (choice) {
-                    case 0:
-                        // Replay the level
-                        resetCharacters();
-                        // Gameplay music again
-                        audioManager.stopBackground();
-                        audioManager.playBackground("gameplay_music.wav", currentVolume);
-                        playGame();
-                        break;
-                    case 1:
-                        // Back to main menu
-                        audioManager.stopBackground();
-                        audioManager.playBackground("menu_music.wav", currentVolume);
-                        break;
-                    case 2:
-                        // Quit
-                        System.exit(0);
-                        break;
+            resumed = false;
+            if (!playStoryBattle(player, opponent, opponent.name)) {
+                if (storyStage == finalStage) {
+                    out.println("You were defeated by the dumb cat. Try again, and this time play smarter.");
+                } else {
+                    out.println("Come on you lost!? I did not think it was that hard. Restart Story Mode to try again.");
                 }
-            } else if (!opponent.isAlive()) {
-                // Stop gameplay music before victory SFX
-                audioManager.stopBackground();
-                System.out.println(gruesomeVictoryMessage(player.name, opponent.name));
-                audioManager.playSFX("victory.wav", -5.0f);
-                int choice = UI.postVictoryChoice();
-            audioManager.stopSFX();
+                break;
+            }
+            if (storyStage == finalStage) {
+                out.println("Congratulations! You have just obliterated the cat for absolutly no reason, well one reason, no one likes cats.");
+                break;
+            }
+            storyStage++;
+            opponent = storyOpponent(storyStage);
+        }
+        // The story is over either way, so there is nothing left to continue
+        storyStage = -1;
+        player = null;
+        autosave(SaveGame.IN_BATTLE);
+    }
+
+    private boolean playStoryBattle(Player player, Opponent opponent, String opponentName) {
+        out.println("You are battling the " + opponentName + "!");
+
+        while (player.isAlive() && opponent.isAlive()) {
+            autosave(SaveGame.IN_BATTLE);
+            int choice = UI.getAttackChoice(player, opponent);
+            int damage = 0;
             switch (choice) {
-                case 0:
-                    // Next level
-                    level++;
-                    resetCharacters();
-                    audioManager.stopBackground();
-                    audioManager.playBackground("gameplay_music.wav", currentVolume);
-                    playGame();
-                    break;
                 case 1:
-                    // Back to main menu
-                    audioManager.stopBackground();
-                    audioManager.playBackground("menu_music.wav", currentVolume);
+                    damage = 5;
                     break;
                 case 2:
-                    // Quit
-                    System.exit(0);
+                    if (player.sp >= 25) {
+                        damage = Dice.roll(rng);
+                        player.reduceSp(25);
+                    } else {
+                        out.println("Not enough SP! Using Base Attack.");
+                        damage = 5;
+                    }
+                    break;
+                case 3:
+                    if (player.sp >= 50) {
+                        damage = Dice.roll(rng) * 2;
+                        player.reduceSp(50);
+                    } else {
+                        out.println("Not enough SP! Using Base Attack.");
+                        damage = 5;
+                    }
                     break;
             }
+            opponent.reduceHp(damage);
+
+            if (!opponent.isAlive()) {
+                out.println("You defeated the " + opponentName + "!");
+                break;
+            }
+
+            int oppDamage = Dice.roll(rng) * 2;
+            player.reduceHp(oppDamage);
+            out.println("The " + opponentName + " attacked and dealt " + oppDamage + " damage!");
+        }
+
+        return player.isAlive();
+    }
+
+    private Screen setupGame() {
+        List<String> availableChars = new ArrayList<>(ALL_CHARACTERS);
+        String playerChar = UI.chooseCharacter("Choose your character:", availableChars);
+        player = new Player(playerChar);
+        availableChars.remove(playerChar);
+
+        String opponentChar = UI.chooseCharacter("Choose your opponent:", availableChars);
+        opponent = new Opponent(opponentChar);
+
+        level = 1;
+        ladder = false;
+        startGameplayMusic();
+        return Screen.BATTLE;
+    }
+
+    // The opponents come in turn and grow with the level, see Ladder
+    private Screen setupLadder() {
+        player = new Player(UI.chooseCharacter("Choose your character:", ALL_CHARACTERS));
+        opponent = new Opponent(Ladder.opponentName(ALL_CHARACTERS, player.name, 1));
+        level = 1;
+        ladder = true;
+        autoPolicy = null;
+        Ladder.scale(player, level);
+        Ladder.scaleOpponent(opponent, level);
+        startGameplayMusic();
+        return Screen.BATTLE;
+    }
+
+    public void adjustAudio() {
+        int volumeChoice = UI.getVolumeChoice();
+        currentVolume = convertVolumeToDecibel(volumeChoice);
+        audioManager.setBackgroundVolume(currentVolume);
+        autosave(savedScreen);
+    }
+
+    // Uses the save for everything from here on; a save found on disk sets the
+    // volume straight away and puts Continue on the main menu
+    void setSaves(SaveWriter saves, SaveGame found) {
+        this.saves = saves;
+        if (found == null) return;
+        currentVolume = found.volume;
+        if (found.mode != SaveGame.NONE) resume = found;
+    }
+
+    private void autosave(int screen) {
+        if (saves == null) return;
+        savedScreen = screen;
+        SaveGame save = new SaveGame();
+        save.volume = currentVolume;
+        save.rngState = rng.state();
+        save.rngGamma = rng.gamma();
+        if (player != null && opponent != null) {
+            save.mode = storyStage >= 0 ? SaveGame.STORY : ladder ? SaveGame.LADDER : SaveGame.VERSUS;
+            save.screen = screen;
+            save.level = level;
+            save.storyStage = storyStage;
+            save.playerName = player.name;
+            save.playerMaxHp = player.maxHp;
+            save.playerHp = player.hp;
+            save.playerMaxSp = player.maxSp;
+            save.playerSp = player.sp;
+            save.opponentName = opponent.name;
+            save.opponentMaxHp = opponent.maxHp;
+            save.opponentHp = opponent.hp;
+            save.opponentMaxSp = opponent.maxSp;
+            save.opponentSp = opponent.sp;
+        }
+        saves.save(save);
+    }
+
+    // Puts everything back as it was saved, dice included, and carries on from there
+    private Screen continueGame() {
+        SaveGame save = resume;
+        resume = null;
+        rng.restore(save.rngState, save.rngGamma);
+        level = save.level;
+        ladder = save.mode == SaveGame.LADDER;
+        autoPolicy = null;
+        player = new Player(save.playerName);
+        player.maxHp = save.playerMaxHp;
+        player.hp = save.playerHp;
+        player.maxSp = save.playerMaxSp;
+        player.sp = save.playerSp;
+        opponent = new Opponent(save.opponentName);
+        opponent.maxHp = save.opponentMaxHp;
+        opponent.hp = save.opponentHp;
+        opponent.maxSp = save.opponentMaxSp;
+        opponent.sp = save.opponentSp;
+
+        if (save.mode == SaveGame.STORY) {
+            storyStage = Math.max(0, Math.min(STORY_OPPONENTS.length - 1, save.storyStage));
+            out.println("\nBack to the story: the dog against the " + opponent.name + ".");
+            playStory(true);
+            return Screen.MAIN_MENU;
+        }
+        out.println("\nWelcome back! Level " + level + ", the " + player.name + " against the " + opponent.name + ".");
+        if (save.screen == SaveGame.AFTER_VICTORY) return Screen.VICTORY;
+        if (save.screen == SaveGame.AFTER_DEFEAT) return Screen.DEFEAT;
+        startGameplayMusic();
+        return Screen.BATTLE;
+    }
+
+    private void startGameplayMusic() {
+        audioManager.stopBackground();
+        audioManager.playBackground(AudioManager.GAMEPLAY_MUSIC, currentVolume);
+    }
+
+    private void startMenuMusic() {
+        audioManager.stopBackground();
+        audioManager.playBackground(AudioManager.MENU_MUSIC, currentVolume);
+    }
+
+    private Screen playGame() {
+        engine.startBattle(player, opponent);
+        if (ladder) {
+            out.println("\nLadder level " + level + ": the " + opponent.name + " (" + opponent.maxHp + " HP, "
+                + opponent.maxSp + " SP)");
+        }
+        while (player.isAlive() && opponent.isAlive()) {
+            if (autoPolicy != null) return autoBattle();
+            autosave(SaveGame.IN_BATTLE);
+            if (!playerTurn()) continue;
+            if (!opponent.isAlive()) break;
+            opponentTurn();
+        }
+        // Stop gameplay music before the victory or defeat SFX
+        audioManager.stopBackground();
+        autosave(player.isAlive() ? SaveGame.AFTER_VICTORY : SaveGame.AFTER_DEFEAT);
+        return player.isAlive() ? Screen.VICTORY : Screen.DEFEAT;
+    }
+
+    private Screen afterDefeat() {
+        out.println(Narration.gruesomeDefeatMessage(rng, opponent.name, player.name));
+        audioManager.playSFX(AudioManager.DEFEAT, -5.0f);
+        int choice = UI.postDefeatChoice();
+        audioManager.stopSFX();
+        switch (choice) {
+            case 0:
+                // Replay the level, at the same stats on the ladder
+                resetCharacters();
+                startGameplayMusic();
+                return Screen.BATTLE;
+            case 1:
+                startMenuMusic();
+                return Screen.MAIN_MENU;
+            default:
+                return Screen.QUIT;
+        }
+    }
+
+    private Screen afterVictory() {
+        out.println(Narration.gruesomeVictoryMessage(rng, player.name, opponent.name));
+        audioManager.playSFX(AudioManager.VICTORY, -5.0f);
+        int choice = UI.postVictoryChoice();
+        audioManager.stopSFX();
+        switch (choice) {
+            case 0:
+                // Next level
+                nextLevel();
+                startGameplayMusic();
+                return Screen.BATTLE;
+            case 1:
+                startMenuMusic();
+                return Screen.MAIN_MENU;
+            default:
+                return Screen.QUIT;
+        }
+    }
+
+    // Plays the player's side with no output until the stop level is won or a
+    // battle is lost. Either way the player gets the controls back.
+    private Screen autoBattle() {
+        int from = level;
+        autoProgress.battles = 0;
+        autoProgress.attacks = 0;
+        long start = System.nanoTime();
+        level = Ladder.climb(engine, player, opponent, autoPolicy, level, autoStopLevel, autoProgress);
+        double millis = (System.nanoTime() - start) / 1e6;
+        autoPolicy = null;
+        autosave(player.isAlive() ? SaveGame.AFTER_VICTORY : SaveGame.AFTER_DEFEAT);
+        out.println(String.format("Auto-battle: level %d to %d, %d battles and %d attacks in %.1f ms",
+            from, level, autoProgress.battles, autoProgress.attacks, millis));
+        out.status(player, opponent);
+        audioManager.stopBackground();
+        return player.isAlive() ? Screen.VICTORY : Screen.DEFEAT;
+    }
+
+    private void chooseAutoBattle() {
+        String[] options = new String[Ladder.STRATEGY_NAMES.length + 1];
+        for (int i = 0; i < Ladder.STRATEGY_NAMES.length; i++) {
+            options[i] = "Auto-battle playing " + Ladder.STRATEGY_NAMES[i];
+        }
+        options[Ladder.STRATEGY_NAMES.length] = "Cancel";
+        int choice = UI.getPlayerChoice(options);
+        if (choice == Ladder.STRATEGY_NAMES.length) return;
+        autoStopLevel = UI.getNumber("Stop after winning level (" + level + " to " + Ladder.MAX_LEVEL + "): ",
+            level, Ladder.MAX_LEVEL);
+        autoPolicy = Ladder.strategy(choice);
+    }
+
+    private void nextLevel() {
+        level++;
+        if (ladder) {
+            Ladder.scale(player, level);
+            Ladder.scaleOpponent(opponent, level);
+            opponent.name = Ladder.opponentName(ALL_CHARACTERS, player.name, level);
+        } else {
+            resetCharacters();
         }
     }
 
@@ -456,225 +1040,142 @@ class UI {
         opponent.sp = opponent.maxSp;
     }
 
-    private void playerTurn() {
-        int choice = UI.getAttackChoice(player, opponent);
-        int damage = 0;
-        int cost = 0;
-
-        switch (choice) {
-            case 1:
-                damage = 5;  
-                cost = 0;
-                break;
-            case 2:
-                cost = 25;
-                if (player.sp < cost) {
-                    System.out.println("Not enough SP! Using Base Attack instead.");
-                    damage = 5;
-                    cost = 0;
-                } else {
-                    player.reduceSp(cost);
-                    int roll = Dice.roll();
-                    damage = secondaryAttackDamage(roll);
-                    System.out.println("You rolled a " + roll + " and dealt " + damage + " damage!");
-                }
-                break;
-            case 3:
-                cost = 50;
-                if (player.sp < cost) {
-                    System.out.println("Not enough SP! Using Base Attack instead.");
-                    damage = 5;
-                    cost = 0;
-                } else {
-                    player.reduceSp(cost);
-                    int roll = Dice.roll();
-                    damage = tertiaryAttackDamage(roll);
-                    System.out.println("You rolled a " + roll + " and dealt " + damage + " damage!");
-                }
-                break;
+    // False when the player switched auto-battle on instead of attacking
+    private boolean playerTurn() {
+        int choice = UI.getAttackChoice(player, opponent, ladder);
+        if (choice == 4) {
+            chooseAutoBattle();
+            return false;
         }
+        engine.resolveAttack(player, opponent, choice, turnResult);
 
-        if (damage > 0 && isNoDamageScenario()) {
-            System.out.println(noDamageMessage(player.name));
-            damage = 0; 
-        } else if (damage > 0) {
-            System.out.println(gruesomeAttackMessage(player.name, opponent.name));
+        if (turnResult.fellBack()) {
+            out.println("Not enough SP! Using Base Attack instead.");
+        } else if (turnResult.attack != Rules.BASE_ATTACK) {
+            out.println("You rolled a " + turnResult.roll + " and dealt " + turnResult.damage + " damage!");
         }
 
-        opponent.reduceHp(damage);
-        displayStats();
+        narrateOutcome(player, opponent);
+        displayStats(false);
+        return true;
     }
 
     private void opponentTurn() {
         if (!opponent.isAlive()) return;
 
-        System.out.println("\n" + opponent.name + "'s Turn!");
+        out.println("\n" + opponent.name + "'s Turn!");
 
-        int damage = 0;
         int attackChoice = chooseOpponentAttack();
-        if (attackChoice == 1) {
-            damage = 5;
-            System.out.println(opponent.name + " used Base Attack and dealt 5 damage!");
-        } else if (attackChoice == 2) {
-            int roll = Dice.roll();
-            damage = secondaryAttackDamage(roll);
-            opponent.reduceSp(25);
-            System.out.println(opponent.name + " rolled a " + roll + " for Secondary Attack and dealt " + damage + " damage!");
+        engine.resolveAttack(opponent, player, attackChoice, turnResult);
+        if (turnResult.attack == Rules.BASE_ATTACK) {
+            out.println(opponent.name + " used Base Attack and dealt " + turnResult.damage + " damage!");
+        } else if (turnResult.attack == Rules.SECONDARY_ATTACK) {
+            out.println(opponent.name + " rolled a " + turnResult.roll + " for Secondary Attack and dealt " + turnResult.damage + " damage!");
         } else {
-            int roll2 = Dice.roll();
-            damage = tertiaryAttackDamage(roll2);
-            opponent.reduceSp(50);
-            System.out.println(opponent.name + " rolled a " + roll2 + " for Tertiary Attack and dealt " + damage + " damage!");
-        }
-
-        if (damage > 0 && isNoDamageScenario()) {
-            System.out.println(noDamageMessage(opponent.name));
-            damage = 0;
-        } else if (damage > 0) {
-            System.out.println(gruesomeAttackMessage(opponent.name, player.name));
+            out.println(opponent.name + " rolled a " + turnResult.roll + " for Tertiary Attack and dealt " + turnResult.damage + " damage!");
         }
 
-        player.reduceHp(damage);
-        displayStats();
+        narrateOutcome(opponent, player);
+        displayStats(true);
     }
 
-    private void displayStats() {
-        System.out.println("\nCurrent Status:");
-        System.out.println(player.name + "'s HP: " + player.hp + " | " + player.name + "'s SP: " + player.sp);
-        System.out.println(opponent.name + "'s HP: " + opponent.hp + " | " + opponent.name + "'s SP: " + opponent.sp);
+    private void narrateOutcome(Character attacker, Character defender) {
+        if (turnResult.slipped) {
+            out.println(Narration.noDamageMessage(rng, attacker.name));
+        } else if (turnResult.damage > 0) {
+            out.println(Narration.gruesomeAttackMessage(rng, attacker.name, defender.name));
+        }
+        if (turnResult.spRefund > 0) {
+            out.println("The " + attacker.name + " rolled high and regained " + turnResult.spRefund + " SP!");
+        }
+        if (turnResult.spBonus > 0) {
+            out.println("The " + attacker.name + " smells blood and gains " + turnResult.spBonus + " SP!");
+        }
     }
 
-    private int chooseOpponentAttack() {
-        if (level == 1) {
-            // Random approach
-            Random rand = new Random();
-            int[] attacks = {1,2,3};
-            for (int i = 0; i < attacks.length; i++) {
-                int index = rand.nextInt(attacks.length);
-                int temp = attacks[i];
-                attacks[i] = attacks[index];
-                attacks[index] = temp;
-            }
+    // Every character against every other, AI only, with the results streamed as they come in
+    private void runTournament() {
+        List<String> names = ALL_CHARACTERS;
+        String[] strategyOptions = new String[Tournament.STRATEGY_NAMES.length + 2];
+        for (int i = 0; i < Tournament.STRATEGY_NAMES.length; i++) {
+            strategyOptions[i] = "Everyone plays " + Tournament.STRATEGY_NAMES[i];
+        }
+        strategyOptions[Tournament.STRATEGY_NAMES.length] = "Mixed strategies";
+        strategyOptions[Tournament.STRATEGY_NAMES.length + 1] = "Pick for each character";
+        out.println("\nPick the AI for the tournament.");
+        int choice = UI.getPlayerChoice(strategyOptions);
 
-            for (int attack: attacks) {
-                if (attack == 1) { 
-                    return 1;
-                } else if (attack == 2 && opponent.sp >= 25) {
-                    return 2;
-                } else if (attack == 3 && opponent.sp >= 50) {
-                    return 3;
-                }
-            }
-            return 1;
-        } else {
-            // Intelligent approach (level 2 and above)
-            if (opponent.sp >= 50) {
-                return 3; // Tertiary
-            } else if (opponent.sp >= 25) {
-                return 2; // Secondary
+        int[] strategies = new int[names.size()];
+        for (int i = 0; i < strategies.length; i++) {
+            if (choice < Tournament.STRATEGY_NAMES.length) {
+                strategies[i] = choice;
+            } else if (choice == Tournament.STRATEGY_NAMES.length) {
+                strategies[i] = i % Tournament.STRATEGY_NAMES.length;
             } else {
-                return 1; // Base
+                out.println("\nStrategy for the " + names.get(i) + ":");
+                strategies[i] = UI.getPlayerChoice(Tournament.STRATEGY_NAMES);
             }
         }
-    }
+        int bestOf = UI.getNumber("Games per match (1 to 100000): ", 1, 100000);
 
-    private int secondaryAttackDamage(int roll) {
-        switch (roll) {
-            case 1: return 5;
-            case 2: return 10;
-            case 3: return 15;
-            case 4: return 18;
-            case 5: return 23;
-            case 6: return 25;
+        out.println("\nThe tournament begins!");
+        out.flush();
+        long start = System.nanoTime();
+        List<Tournament.Standing> standings;
+        try {
+            standings = new Tournament(names, strategies, bestOf, rng.split()).run((result, finished, total) -> {
+                out.println(Tournament.describe(names, result, finished, total));
+                out.flush();
+            });
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
         }
-        return 0; 
+        double seconds = (System.nanoTime() - start) / 1e9;
+        out.println();
+        out.print(Tournament.leaderboard(standings));
+        out.println(String.format("Played in %.2f s", seconds));
+        UI.waitForEnter("\nPress Enter to return to the main menu...");
     }
 
-    private int tertiaryAttackDamage(int roll) {
-        switch (roll) {
-            case 1: return 5;
-            case 2: return 10;
-            case 3: return 25;
-            case 4: return 35;
-            case 5: return 45;
-            case 6: return 50;
-        }
-        return 0; 
+    private void displayStats(boolean playerToMove) {
+        out.status(player, opponent);
+        // The solver models the standard opponents, not the ladder's or the search levels in between
+        if (showWinChance && !ladder && WinProbabilitySolver.hasModel(level)) displayWinChance(playerToMove);
     }
 
-    private boolean isNoDamageScenario() {
-        Random rand = new Random();
-        int chance = rand.nextInt(100); 
-        return chance < 10; // 10% chance
+    private void displayWinChance(boolean playerToMove) {
+        if (!player.isAlive() || !opponent.isAlive()) return;
+        WinProbabilitySolver solver = WinProbabilitySolver.ifReady(level);
+        if (solver == null) {
+            WinProbabilitySolver.prepare(level);
+            out.println("Win chance: still working it out...");
+            return;
+        }
+        double chance = solver.winProbability(player.hp, player.sp, opponent.hp, opponent.sp, playerToMove);
+        if (Double.isNaN(chance)) return;
+        double turns = solver.expectedTurns(player.hp, player.sp, opponent.hp, opponent.sp, playerToMove);
+        out.println(String.format("Win chance: %.1f%% (about %.0f attacks to go)", chance * 100, turns));
     }
 
-    private String noDamageMessage(String attacker) {
-        List<String> messages = Arrays.asList(
-            "The " + attacker + " lunged forward but tripped over its own feet, causing no damage at all!",
-            "In a hilarious blunder, the " + attacker + " swung wildly and hit nothing but air!",
-            "The " + attacker + " got distracted by a passing butterfly and forgot to attack, doing no damage!",
-            "Whoops! The " + attacker + " tried to strike but slipped on a banana peel, dealing no damage!",
-            "The " + attacker + " let out a mighty battle cry, then sneezed mid-attack, resulting in zero damage!"
-        );
-        Random rand = new Random();
-        return messages.get(rand.nextInt(messages.size()));
-    }
-
-    private String gruesomeAttackMessage(String attacker, String defender) {
-        List<String> messages = Arrays.asList(
-            "With a sickening crunch, the " + attacker + " tore into the " + defender + "'s flesh!",
-            "Blood sprayed as the " + attacker + " ripped the " + defender + " apart!",
-            "The " + attacker + " unleashed a flurry of savage blows, leaving the " + defender + " screaming in agony!",
-            "A guttural roar escaped the " + attacker + " as it relentlessly mauled the " + defender + "!",
-            "The " + attacker + " snarled viciously, tearing chunks from the " + defender + " with ruthless abandon!",
-            "In a frenzy of teeth and claws, the " + attacker + " shredded the " + defender + " until crimson covered the floor!",
-            "The " + attacker + " cackled, delighting in the " + defender + "'s torment as it savored every brutal strike!"
-        );
-        Random rand = new Random();
-        return messages.get(rand.nextInt(messages.size()));
+    // Every battle from here on is written to the log
+    void setMatchLog(MatchLog log) {
+        engine.addListener(log);
     }
 
-    private String gruesomeVictoryMessage(String winner, String loser) {
-        List<String> messages = Arrays.asList(
-            "====================================\n" +
-            "With a final, bone-crunching blow, the " + winner + " left the " + loser + "'s twitching corpse in a pool of blood.\n" +
-            "YOU ARE VICTORIOUS!\n" +
-            "====================================",
-
-            "====================================\n" +
-            "The " + winner + " stood triumphantly over the mangled, unrecognizable remains of the " + loser + ", roaring in savage triumph!\n" +
-            "YOU ARE VICTORIOUS!\n" +
-            "====================================",
-
-            "====================================\n" +
-            "A final, ear-splitting shriek marked the end as the " + winner + " dismembered the " + loser + " with merciless precision.\n" +
-            "YOU ARE VICTORIOUS!\n" +
-            "====================================",
-
-            "====================================\n" +
-            "The " + winner + " huffed, dripping with gore, as the " + loser + " lay scattered in pieces. Victory never tasted so bitter.\n" +
-            "YOU ARE VICTORIOUS!\n" +
-            "====================================",
+    // Every battle from here on is broadcast to the feed's spectators
+    void setSpectators(SpectatorFeed feed) {
+        engine.addListener(feed);
+    }
 
-            "====================================\n" +
-            "In an explosion of entrails and howling fury, the " + winner + " ended the " + loser + " once and for all.\n" +
-            "YOU ARE VICTORIOUS!\n" +
-            "===================================="
-        );
-        Random rand = new Random();
-        return messages.get(rand.nextInt(messages.size()));
+    void setShowWinChance(boolean show) {
+        showWinChance = show;
+        if (show) WinProbabilitySolver.prepare(level);
     }
 
-    private String gruesomeDefeatMessage(String winner, String loser) {
-        List<String> messages = Arrays.asList(
-            "You have been mauled to death by the pitiless " + winner + ", your screams swallowed by the crimson aftermath.",
-            "The " + winner + " cackled as the " + loser + "'s lifeless, shredded corpse sank into the sticky mire of gore.",
-            "With no mercy, the " + winner + " reduced the " + loser + " to a heap of splintered bones and torn flesh.",
-            "A wet snap signaled the end: the " + winner + " had utterly obliterated the " + loser + ", leaving nothing but ruin.",
-            "The " + winner + " feasted on the " + loser + "'s remains, savoring the taste of hopeless defeat."
-        );
-        Random rand = new Random();
-        return messages.get(rand.nextInt(messages.size()));
+    private int chooseOpponentAttack() {
+        AttackPolicy policy = ladder ? Ladder.opponentPolicy(level) : AttackPolicies.forLevel(level);
+        return policy.chooseAttack(opponent, player, rng);
     }
 
     public float convertVolumeToDecibel(int volume) {
@@ -683,8 +1184,105 @@ class UI {
         return minDb + ((maxDb - minDb) / 9) * (volume - 1);
     }
 
-    public static void main(String[] args) {
-        Game game = new Game();
-        game.start();
+    // Loads what the first battle needs while the player is still in the menus
+    private static void warmUp() {
+        Thread thread = new Thread(() -> {
+            PolicyTable.loadDefault();
+            Narration.preload();
+            AttackPolicies.forLevel(1);
+        }, "warm-up");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    // Options: --seed N, --record FILE (save every input line), --replay FILE (play a recording back),
+    //          --ansi (pinned status lines), --quiet (no output), --win-chance (exact odds under the status),
+    //          --log FILE (binary log of every attack, see MatchReplay), --no-save (no autosave or Continue),
+    //          --spectate PORT (broadcast battles to spectators on this loopback port, see SpectatorServer),
+    //          --metrics (latency summary on exit, and JFR events for a flight recording),
+    //          --no-audio (never touch Java Sound)
+    public static void main(String[] args) throws IOException {
+        Renderer.Mode renderMode = Renderer.Mode.PLAIN;
+        Long seed = null;
+        String recordFile = null;
+        String replayFile = null;
+        String logFile = null;
+        int spectatePort = -1;
+        boolean winChance = false;
+        boolean saving = true;
+        boolean audio = true;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--ansi")) {
+                renderMode = Renderer.Mode.ANSI;
+            } else if (args[i].equals("--quiet")) {
+                renderMode = Renderer.Mode.QUIET;
+            } else if (args[i].equals("--metrics")) {
+                // Before anything touches Metrics, its switch is read once when the class loads
+                System.setProperty(Metrics.PROPERTY, "true");
+            } else if (args[i].equals("--win-chance")) {
+                winChance = true;
+            } else if (args[i].equals("--no-save")) {
+                saving = false;
+            } else if (args[i].equals("--no-audio")) {
+                audio = false;
+            } else if (i + 1 >= args.length) {
+                break;
+            } else if (args[i].equals("--seed")) {
+                seed = Long.parseLong(args[++i]);
+            } else if (args[i].equals("--record")) {
+                recordFile = args[++i];
+            } else if (args[i].equals("--replay")) {
+                replayFile = args[++i];
+            } else if (args[i].equals("--log")) {
+                logFile = args[++i];
+            } else if (args[i].equals("--spectate")) {
+                spectatePort = Integer.parseInt(args[++i]);
+            }
+        }
+
+        InputSource input;
+        if (replayFile != null) {
+            ScriptedInput script = ScriptedInput.fromFile(Paths.get(replayFile));
+            if (seed == null) seed = script.recordedSeed();
+            input = script;
+        } else if (recordFile != null) {
+            // A recording only replays the same way with the same dice, so it always carries a seed
+            if (seed == null) seed = System.nanoTime();
+            Writer recorder = Files.newBufferedWriter(Paths.get(recordFile), StandardCharsets.UTF_8);
+            recorder.write(InputSource.SEED_HEADER + seed + "\n");
+            input = new ConsoleInput(System.in, recorder);
+        } else {
+            input = new ConsoleInput(System.in, null);
+        }
+        UI.setInput(input);
+        UI.setRenderer(Renderer.console(renderMode));
+        warmUp();
+
+        Game game = new Game(seed != null ? Rng.forMatch(seed) : Rng.forMatch(), new AudioManager(audio));
+        game.setShowWinChance(winChance);
+        MatchLog log = logFile != null ? new MatchLog(Paths.get(logFile)) : null;
+        game.setMatchLog(log);
+        SpectatorServer spectators = spectatePort >= 0 ? new SpectatorServer(spectatePort) : null;
+        if (spectators != null) {
+            game.setSpectators(spectators.feed());
+            UI.renderer().println("Spectators can watch on port " + spectators.port());
+        }
+        // Recordings and replays both start from the plain menu and the recorded seed, never from a save
+        SaveWriter saves = saving && replayFile == null && recordFile == null
+            ? new SaveWriter(Paths.get(SaveGame.DEFAULT_FILE)) : null;
+        if (saves != null) game.setSaves(saves, SaveGame.load(Paths.get(SaveGame.DEFAULT_FILE)));
+        try {
+            game.start();
+        } catch (InputClosedException e) {
+            UI.renderer().println("\nEnd of input, goodbye!");
+        } finally {
+            UI.renderer().close();
+            input.close();
+            if (log != null) log.close();
+            if (spectators != null) spectators.close();
+            if (saves != null) saves.close();
+        }
+        if (Metrics.ENABLED) System.out.print(Metrics.summary());
+        System.exit(0);
     }
 }
\ No newline at end of file
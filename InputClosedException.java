@@ -0,0 +1,8 @@
+// === InputClosedException Class ===
+class InputClosedException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    InputClosedException() {
+        super("No more input");
+    }
+}
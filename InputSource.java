@@ -0,0 +1,12 @@
+// === InputSource Interface ===
+// Where UI gets its input from: a line at a time. Lines starting with '#'
+// in a script are comments (a recording stores its seed in one).
+interface InputSource {
+    String SEED_HEADER = "#seed=";
+
+    // Next line without its terminator, throws InputClosedException once input runs out
+    String nextLine();
+
+    default void close() {
+    }
+}
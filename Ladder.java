@@ -0,0 +1,158 @@
+import java.util.List;
+
+// === Ladder Class ===
+// The endless ladder: every level both fighters get tougher and the opponent
+// gets harder. Stats grow with the square root of the level, so a battle at
+// level 1000 is a few times longer than one at level 1 rather than hundreds.
+// The opponent's search stops at two attacks ahead because anything deeper
+// costs milliseconds a move on the bigger numbers, so past that its edge
+// comes from its stats: extra HP and SP that grow with every doubling of the
+// level. A longer battle turns the same share into a surer win, so the share
+// is divided by the square root of the battle's size to keep the climb
+// getting steadily harder rather than suddenly hopeless. Auto-battle plays
+// the player's side with one of the ladder strategies and climbs level after
+// level with no output until it reaches the level asked for or loses.
+final class Ladder {
+    static final String[] STRATEGY_NAMES = { "random", "greedy", "search" };
+    static final int HP_GROWTH = 10; // extra max HP per square root of the levels climbed
+    static final int SP_GROWTH = 5;
+    static final double OPPONENT_EDGE = 0.01; // extra share of HP and SP per doubling of the level, at 100 HP
+    static final int MAX_LEVEL = 1_000_000;
+    private static final int SEARCH_DEPTH = 2;
+    private static final int DEEP_SEARCH_LEVEL = 10; // first level the opponent looks two attacks ahead
+
+    // Filled in by climb(), reused so a climb allocates nothing
+    static class Progress {
+        int battles;
+        long attacks;
+    }
+
+    private Ladder() {
+    }
+
+    static int maxHp(int level) {
+        return 100 + (int) Math.round(HP_GROWTH * Math.sqrt(level - 1));
+    }
+
+    static int maxSp(int level) {
+        return 100 + (int) Math.round(SP_GROWTH * Math.sqrt(level - 1));
+    }
+
+    static int opponentMaxHp(int level) {
+        return (int) Math.round(maxHp(level) * edge(level));
+    }
+
+    static int opponentMaxSp(int level) {
+        return (int) Math.round(maxSp(level) * edge(level));
+    }
+
+    private static double edge(int level) {
+        int doublings = 31 - Integer.numberOfLeadingZeros(level);
+        return 1 + OPPONENT_EDGE * doublings * Math.sqrt(100.0 / maxHp(level));
+    }
+
+    // Sets the player up for a fresh battle at this level
+    static void scale(Character character, int level) {
+        reset(character, maxHp(level), maxSp(level));
+    }
+
+    static void scaleOpponent(Character character, int level) {
+        reset(character, opponentMaxHp(level), opponentMaxSp(level));
+    }
+
+    private static void reset(Character character, int maxHp, int maxSp) {
+        character.maxHp = maxHp;
+        character.maxSp = maxSp;
+        character.hp = maxHp;
+        character.sp = maxSp;
+    }
+
+    static AttackPolicy opponentPolicy(int level) {
+        if (level <= 1) return AttackPolicies.RANDOM;
+        if (level == 2) return AttackPolicies.GREEDY;
+        return AttackPolicies.search(level < DEEP_SEARCH_LEVEL ? 1 : SEARCH_DEPTH);
+    }
+
+    static AttackPolicy strategy(int index) {
+        switch (index) {
+            case 0: return AttackPolicies.RANDOM;
+            case 1: return AttackPolicies.GREEDY;
+            case 2: return AttackPolicies.search(SEARCH_DEPTH);
+        }
+        throw new IllegalArgumentException("Unknown strategy " + index);
+    }
+
+    // Each level brings on the next character along, never the player's own
+    static String opponentName(List<String> characters, String playerName, int level) {
+        int others = characters.size() - 1;
+        int skip = characters.indexOf(playerName);
+        int index = (level - 1) % others;
+        return characters.get(skip >= 0 && index >= skip ? index + 1 : index);
+    }
+
+    // Finishes the battle in progress at this level, already announced with
+    // startBattle and the player to move, then plays every level after it up to
+    // stopLevel. Stops at the first loss; returns the level of the last battle played.
+    static int climb(BattleEngine engine, Player player, Opponent opponent, AttackPolicy playerPolicy,
+                     int level, int stopLevel, Progress progress) {
+        progress.attacks += engine.finishBattle(player, opponent, playerPolicy, opponentPolicy(level));
+        while (true) {
+            progress.battles++;
+            if (!player.isAlive() || level >= stopLevel) return level;
+            level++;
+            scale(player, level);
+            scaleOpponent(opponent, level);
+            opponent.name = opponentName(Game.ALL_CHARACTERS, player.name, level);
+            progress.attacks += engine.runBattle(player, opponent, playerPolicy, opponentPolicy(level));
+        }
+    }
+
+    // Usage: java Ladder [levels] [strategy] [seed]
+    // Climbs to the given level with auto-battle, replaying a level after each
+    // loss, and prints how long it took and how the late levels went.
+    public static void main(String[] args) {
+        int levels = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        String strategy = args.length > 1 ? args[1] : "greedy";
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : System.nanoTime();
+        int strategyIndex = -1;
+        for (int i = 0; i < STRATEGY_NAMES.length; i++) {
+            if (STRATEGY_NAMES[i].equalsIgnoreCase(strategy)) strategyIndex = i;
+        }
+        if (strategyIndex < 0) throw new IllegalArgumentException("Unknown strategy: " + strategy);
+
+        Rng rng = Rng.forMatch(seed);
+        BattleEngine engine = new BattleEngine(Rules.STANDARD, rng);
+        AttackPolicy policy = strategy(strategyIndex);
+        Player player = new Player("dog");
+        Opponent opponent = new Opponent(opponentName(Game.ALL_CHARACTERS, player.name, 1));
+        Progress progress = new Progress();
+        int losses = 0;
+        int lateLosses = 0;
+        int lateFrom = Math.max(1, levels - levels / 10);
+
+        Runtime runtime = Runtime.getRuntime();
+        long heapBefore = runtime.totalMemory() - runtime.freeMemory();
+        long start = System.nanoTime();
+        int level = 1;
+        scale(player, level);
+        scaleOpponent(opponent, level);
+        while (true) {
+            engine.startBattle(player, opponent);
+            level = climb(engine, player, opponent, policy, level, levels, progress);
+            if (player.isAlive()) break;
+            losses++;
+            if (level >= lateFrom) lateLosses++;
+            scale(player, level);
+            scaleOpponent(opponent, level);
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        long heapAfter = runtime.totalMemory() - runtime.freeMemory();
+
+        System.out.printf("Reached level %d with %s in %.3f s (seed %d)%n", level, strategy, seconds, seed);
+        System.out.printf("%d battles, %d lost, %d attacks, %.0f levels/s%n",
+            progress.battles, losses, progress.attacks, level / seconds);
+        System.out.printf("Last %d levels: %d lost, at %d HP / %d SP against %d HP / %d SP%n",
+            levels - lateFrom + 1, lateLosses, maxHp(level), maxSp(level), opponentMaxHp(level), opponentMaxSp(level));
+        System.out.printf("Heap in use: %d KB before, %d KB after%n", heapBefore >> 10, heapAfter >> 10);
+    }
+}
@@ -0,0 +1,175 @@
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.PriorityQueue;
+
+// === MatchLoadGenerator Class ===
+// Opens many sessions against a MatchServer from one selector thread and
+// plays them like a patient player: wait for a prompt, think, answer. Attack
+// prompts get a random attack, every other prompt gets 1, which starts a
+// game, picks the first characters and then keeps going to the next level or
+// replaying the last one. Turn latency is the time from sending an attack to
+// the next prompt arriving, so it covers the server's whole turn.
+// Usage: java MatchLoadGenerator [sessions] [seconds] [thinkMs] [host] [port]
+public class MatchLoadGenerator {
+    private static final int TAIL = 64;
+    private static final int MAX_SAMPLES = 20_000_000;
+
+    private static final class Client {
+        final SocketChannel channel;
+        final StringBuilder tail = new StringBuilder(TAIL * 2);
+        long sentAt;       // when the last answer went out
+        boolean sentAttack;
+        long sendAt;       // when the next answer is due
+        String answer;
+
+        Client(SocketChannel channel) {
+            this.channel = channel;
+        }
+    }
+
+    private final Selector selector = Selector.open();
+    private final ByteBuffer readBuffer = ByteBuffer.allocateDirect(64 * 1024);
+    private final PriorityQueue<Client> due = new PriorityQueue<>((a, b) -> Long.compare(a.sendAt, b.sendAt));
+    private final Rng rng = Rng.forMatch();
+    private final long thinkNanos;
+
+    private long[] turnLatencies = new long[1 << 16];
+    private int turnCount;
+    private long prompts;
+    private int connected;
+    private int closed;
+
+    MatchLoadGenerator(long thinkNanos) throws IOException {
+        this.thinkNanos = thinkNanos;
+    }
+
+    void connect(InetSocketAddress address, int sessions) throws IOException {
+        for (int i = 0; i < sessions; i++) {
+            SocketChannel channel = SocketChannel.open();
+            channel.configureBlocking(false);
+            channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            Client client = new Client(channel);
+            if (channel.connect(address)) {
+                connected++;
+                channel.register(selector, SelectionKey.OP_READ, client);
+            } else {
+                channel.register(selector, SelectionKey.OP_CONNECT, client);
+            }
+        }
+    }
+
+    void run(long nanos) throws IOException {
+        long end = System.nanoTime() + nanos;
+        while (System.nanoTime() < end) {
+            long now = System.nanoTime();
+            while (!due.isEmpty() && due.peek().sendAt <= now) {
+                send(due.poll(), now);
+            }
+            long wait = due.isEmpty() ? 10 : Math.max(1, (due.peek().sendAt - now) / 1_000_000);
+            selector.select(Math.min(wait, Math.max(1, (end - now) / 1_000_000)));
+            Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+            while (keys.hasNext()) {
+                SelectionKey key = keys.next();
+                keys.remove();
+                Client client = (Client) key.attachment();
+                if (key.isConnectable()) {
+                    try {
+                        client.channel.finishConnect();
+                        connected++;
+                        key.interestOps(SelectionKey.OP_READ);
+                    } catch (IOException e) {
+                        key.cancel();
+                        closed++;
+                    }
+                } else if (key.isReadable()) {
+                    read(key, client);
+                }
+            }
+        }
+    }
+
+    private void read(SelectionKey key, Client client) {
+        readBuffer.clear();
+        int read;
+        try {
+            read = client.channel.read(readBuffer);
+        } catch (IOException e) {
+            read = -1;
+        }
+        if (read < 0) {
+            key.cancel();
+            closed++;
+            return;
+        }
+        readBuffer.flip();
+        while (readBuffer.hasRemaining()) client.tail.append((char) (readBuffer.get() & 0xff));
+        if (client.tail.length() > TAIL) client.tail.delete(0, client.tail.length() - TAIL);
+
+        int length = client.tail.length();
+        if (length < 2 || client.tail.charAt(length - 2) != ':' || client.tail.charAt(length - 1) != ' ') return;
+        // A prompt: the server has finished and is waiting for us
+        long now = System.nanoTime();
+        prompts++;
+        if (client.sentAttack) recordTurn(now - client.sentAt);
+        // Only the attack menu ends with the opponent's stats line
+        boolean attack = client.tail.indexOf("'s SP: ") >= 0;
+        client.answer = attack ? String.valueOf(1 + rng.nextInt(3)) : "1";
+        client.sentAttack = attack;
+        client.tail.setLength(0);
+        client.sendAt = now + (thinkNanos == 0 ? 0 : thinkNanos / 2 + (long) (rng.nextInt(1000) * (thinkNanos / 1000.0)));
+        due.add(client);
+    }
+
+    private void send(Client client, long now) {
+        try {
+            client.channel.write(ByteBuffer.wrap((client.answer + "\n").getBytes()));
+            client.sentAt = now;
+        } catch (IOException e) {
+            closed++;
+        }
+    }
+
+    private void recordTurn(long nanos) {
+        if (turnCount == turnLatencies.length) {
+            if (turnCount == MAX_SAMPLES) return;
+            turnLatencies = Arrays.copyOf(turnLatencies, Math.min(MAX_SAMPLES, turnCount * 2));
+        }
+        turnLatencies[turnCount++] = nanos;
+    }
+
+    private double percentileMillis(long[] sorted, double percentile) {
+        if (turnCount == 0) return 0;
+        int index = (int) Math.min(turnCount - 1, Math.ceil(percentile / 100 * turnCount) - 1);
+        return sorted[Math.max(0, index)] / 1e6;
+    }
+
+    void report(double seconds) {
+        long[] sorted = Arrays.copyOf(turnLatencies, turnCount);
+        Arrays.sort(sorted);
+        System.out.printf("%d sessions connected, %d closed, %d prompts, %d turns (%.0f turns/s)%n",
+            connected, closed, prompts, turnCount, turnCount / seconds);
+        System.out.printf("Turn latency  p50 %.2f ms  p99 %.2f ms  max %.2f ms%n",
+            percentileMillis(sorted, 50), percentileMillis(sorted, 99), turnCount == 0 ? 0 : sorted[turnCount - 1] / 1e6);
+    }
+
+    public static void main(String[] args) throws IOException {
+        int sessions = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 30;
+        long thinkMillis = args.length > 2 ? Long.parseLong(args[2]) : 1000;
+        String host = args.length > 3 ? args[3] : "localhost";
+        int port = args.length > 4 ? Integer.parseInt(args[4]) : MatchServer.DEFAULT_PORT;
+
+        MatchLoadGenerator generator = new MatchLoadGenerator(thinkMillis * 1_000_000);
+        generator.connect(new InetSocketAddress(host, port), sessions);
+        long start = System.nanoTime();
+        generator.run(seconds * 1_000_000_000L);
+        generator.report((System.nanoTime() - start) / 1e9);
+    }
+}
@@ -0,0 +1,326 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+// === MatchLog Class ===
+// Append-only binary log of every battle and attack a BattleEngine plays,
+// one 8-byte slot an event. The turn loop only stores one long an event into
+// a plain array; a background thread turns full arrays into bytes, adds the
+// snapshots, writes them to the FileChannel and hands the arrays back, so
+// the loop waits on the disk only when every chunk is queued up.
+// Layout, big-endian:
+//   "FFML" | version int | slot size int | snapshot interval int
+//   slots of one long each, the top two bits the kind. Every
+//   SNAPSHOT_INTERVAL slots, starting with the first, begin with a two-slot
+//   snapshot; the slots between hold the events in order.
+//   snapshot: SNAPSHOT | event index of the battle in progress, -1 for none
+//             STATE | the state after the event before it
+//   battle:   BATTLE | player id 8 | opponent id 8 | battle number 46, then a STATE
+//   state:    STATE | player HP, SP | opponent HP, SP, 15 bits each
+//   turn:     TURN | flags 3 | attack 2 | roll 3 | damage 12 | SP gained 12 | defender HP 15 | attacker SP 15
+// Ids are positions in Game.ALL_CHARACTERS, 255 for anyone else. A turn only
+// holds the two numbers an attack changes, so MatchReplay rebuilds the rest
+// from the snapshot in front of it, never more than one interval back, and
+// still opens any event in O(1).
+class MatchLog implements BattleListener, Closeable {
+    static final int MAGIC = 0x46464d4c; // "FFML"
+    static final int VERSION = 2;
+    static final int HEADER_BYTES = 16;
+    static final int RECORD_BYTES = 8;
+    static final int SNAPSHOT_INTERVAL = 64;
+    static final int SNAPSHOT_SLOTS = 2;
+    static final int EVENTS_PER_INTERVAL = SNAPSHOT_INTERVAL - SNAPSHOT_SLOTS;
+
+    static final int SNAPSHOT = 0;
+    static final int BATTLE = 1;
+    static final int TURN = 2;
+    static final int STATE = 3;
+
+    static final int FLAG_OPPONENT = 1; // the opponent made the attack
+    static final int FLAG_SLIPPED = 2;
+    static final int FLAG_FELL_BACK = 4; // asked for an attack it could not pay for
+
+    static final int NUMBER_BITS = 15;
+    static final long NUMBER_MASK = (1 << NUMBER_BITS) - 1;
+    static final int AMOUNT_MASK = 0xfff; // damage and SP gained
+    private static final long STATE_BITS = (1L << 4 * NUMBER_BITS) - 1;
+
+    private static final int CHUNK_SLOTS = 32768;
+    private static final int CHUNKS = 4;
+
+    private final FileChannel channel;
+    private final BlockingQueue<Chunk> empty = new ArrayBlockingQueue<>(CHUNKS);
+    private final BlockingQueue<Chunk> full = new ArrayBlockingQueue<>(CHUNKS + 1);
+    private final Chunk endOfLog = new Chunk(0);
+    private final Thread writer;
+    private volatile IOException writeError;
+    private boolean closed;
+    private long[] longs; // the chunk being filled, one long an event
+    private int used;
+    private long queuedEvents; // in chunks already handed to the writer
+    private long battles;
+    private Character player;
+    private String playerName; // the ids of the last two names seen, since a lookup per battle shows up
+    private String opponentName;
+    private long ids;
+
+    // Only the writer thread touches these: where the next snapshot goes, and
+    // the battle in progress and state as of the last chunk it copied
+    private long written;
+    private int slotsLeft;
+    private long battleEvent = -1;
+    private long state;
+
+    MatchLog(Path path) throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+            StandardOpenOption.TRUNCATE_EXISTING);
+        for (int i = 0; i < CHUNKS; i++) {
+            empty.add(new Chunk(CHUNK_SLOTS));
+        }
+        longs = empty.remove().longs;
+        writer = new Thread(this::writeBuffers, "match-log");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    static int characterId(String name) {
+        int id = Game.ALL_CHARACTERS.indexOf(name);
+        return id < 0 ? 255 : id;
+    }
+
+    long events() {
+        return queuedEvents + used;
+    }
+
+    // Leaves room for at least one more event, as attackResolved does
+    @Override
+    public void battleStarted(Character player, Character opponent) {
+        this.player = player;
+        if (player.name != playerName || opponent.name != opponentName) {
+            playerName = player.name;
+            opponentName = opponent.name;
+            ids = (long) characterId(playerName) << 54 | (long) characterId(opponentName) << 46;
+        }
+        if (used >= longs.length - 2) nextChunk();
+        longs[used++] = (long) BATTLE << 62 | ids | ++battles & (1L << 46) - 1;
+        longs[used++] = (long) STATE << 62 | (player.hp & NUMBER_MASK) << 3 * NUMBER_BITS
+            | (player.sp & NUMBER_MASK) << 2 * NUMBER_BITS | (opponent.hp & NUMBER_MASK) << NUMBER_BITS
+            | opponent.sp & NUMBER_MASK;
+    }
+
+    // One store an attack, small enough for the JIT to inline into the turn
+    // loop; the writer thread works out the snapshots from the events
+    @Override
+    public void attackResolved(Character attacker, Character defender, TurnResult result) {
+        long flags = (attacker == player ? 0 : FLAG_OPPONENT) | (result.slipped ? FLAG_SLIPPED : 0)
+            | (result.attack != result.requestedAttack ? FLAG_FELL_BACK : 0);
+        longs[used++] = (long) TURN << 62 | flags << 59 | (long) result.attack << 57 | (long) result.roll << 54
+            | (long) (result.damage & AMOUNT_MASK) << 42 | (long) (result.spRefund + result.spBonus & AMOUNT_MASK) << 30
+            | (defender.hp & NUMBER_MASK) << NUMBER_BITS | attacker.sp & NUMBER_MASK;
+        if (used == longs.length) nextChunk();
+    }
+
+    private void nextChunk() {
+        if (writeError != null) throw new IllegalStateException("Unable to write match log", writeError);
+        queueChunk();
+    }
+
+    // Hands the current chunk to the writer and takes an empty one
+    private void queueChunk() {
+        try {
+            full.put(new Chunk(longs, used));
+            queuedEvents += used;
+            longs = empty.take().longs;
+            used = 0;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while writing match log");
+        }
+    }
+
+    private void writeBuffers() {
+        int maxSlots = CHUNK_SLOTS + (CHUNK_SLOTS / EVENTS_PER_INTERVAL + 1) * SNAPSHOT_SLOTS;
+        ByteBuffer bytes = ByteBuffer.allocateDirect(HEADER_BYTES + RECORD_BYTES * maxSlots).order(ByteOrder.BIG_ENDIAN);
+        bytes.putInt(MAGIC).putInt(VERSION).putInt(RECORD_BYTES).putInt(SNAPSHOT_INTERVAL);
+        try {
+            while (true) {
+                Chunk next = full.take();
+                if (next == endOfLog) return;
+                copy(next, bytes);
+                bytes.flip();
+                try {
+                    while (bytes.hasRemaining()) channel.write(bytes);
+                } catch (IOException e) {
+                    // Keeps draining so the turn loop never blocks; the error surfaces on the next chunk
+                    if (writeError == null) writeError = e;
+                }
+                bytes.clear();
+                empty.put(new Chunk(next.longs, 0));
+            }
+        } catch (InterruptedException e) {
+            // Closing
+        }
+    }
+
+    // Puts the events into the buffer a run at a time, with a snapshot ahead of every interval
+    private void copy(Chunk chunk, ByteBuffer bytes) {
+        LongBuffer out = bytes.asLongBuffer();
+        long[] events = chunk.longs;
+        int known = 0; // state and battleEvent hold as of just before this event
+        for (int i = 0; i < chunk.used; ) {
+            if (slotsLeft == 0) {
+                catchUp(events, known, i);
+                known = i;
+                out.put((long) SNAPSHOT << 62 | battleEvent & (1L << 62) - 1);
+                out.put((long) STATE << 62 | state);
+                slotsLeft = EVENTS_PER_INTERVAL;
+            }
+            int run = Math.min(slotsLeft, chunk.used - i);
+            out.put(events, i, run);
+            i += run;
+            slotsLeft -= run;
+        }
+        catchUp(events, known, chunk.used);
+        written += chunk.used;
+        bytes.position(bytes.position() + out.position() * RECORD_BYTES);
+    }
+
+    // Brings state and battleEvent from before events[from] up to before
+    // events[to], reading back from the later end: a battle's STATE or the last
+    // turn each side made settles each number, usually within a few events
+    private void catchUp(long[] events, int from, int to) {
+        long found = 0;
+        long settled = 0; // bits of found that hold
+        boolean battleSettled = false;
+        for (int i = to - 1; i >= from && (settled != STATE_BITS || !battleSettled); i--) {
+            long event = events[i];
+            long fields;
+            long values;
+            switch ((int) (event >>> 62)) {
+                case BATTLE:
+                    if (!battleSettled) battleEvent = written + i;
+                    battleSettled = true;
+                    continue;
+                case STATE:
+                    fields = STATE_BITS;
+                    values = event;
+                    break;
+                default:
+                    long defenderHp = event >>> NUMBER_BITS & NUMBER_MASK;
+                    long attackerSp = event & NUMBER_MASK;
+                    if ((event >>> 59 & FLAG_OPPONENT) != 0) {
+                        fields = NUMBER_MASK << 3 * NUMBER_BITS | NUMBER_MASK;
+                        values = defenderHp << 3 * NUMBER_BITS | attackerSp;
+                    } else {
+                        fields = NUMBER_MASK << 2 * NUMBER_BITS | NUMBER_MASK << NUMBER_BITS;
+                        values = attackerSp << 2 * NUMBER_BITS | defenderHp << NUMBER_BITS;
+                    }
+            }
+            found |= values & fields & ~settled;
+            settled |= fields;
+        }
+        state = found | state & ~settled;
+    }
+
+    // Writes out what is left and closes the file, even after a write error, which it then reports
+    @Override
+    public void close() throws IOException {
+        if (closed) return;
+        closed = true;
+        try {
+            queueChunk();
+            full.put(endOfLog);
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            channel.close();
+        }
+        if (writeError != null) throw new IOException("Unable to write match log", writeError);
+    }
+
+    // === Chunk Class ===
+    private static final class Chunk {
+        final long[] longs;
+        final int used;
+
+        Chunk(int slots) {
+            this(new long[slots], 0);
+        }
+
+        Chunk(long[] longs, int used) {
+            this.longs = longs;
+            this.used = used;
+        }
+    }
+
+    // Usage: java MatchLog [battles] [file] [seed]
+    // Plays the same greedy against random battles without and with the log, to
+    // show what recording costs, and leaves the log behind for MatchReplay. The
+    // turn loop's own CPU time is shown next to the wall clock, which on one
+    // core also pays for the writer thread and the disk.
+    public static void main(String[] args) throws IOException {
+        long battles = args.length > 0 ? Long.parseLong(args[0]) : 1_000_000L;
+        Path path = Paths.get(args.length > 1 ? args[1] : "battles.ffml");
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : System.nanoTime();
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+
+        // Warm both paths up so the JIT has compiled them before timing
+        play(null, seed, battles / 10);
+        try (MatchLog warmup = new MatchLog(path)) {
+            play(warmup, seed, battles / 10);
+        }
+
+        long start = System.nanoTime();
+        long cpu = threads.getCurrentThreadCpuTime();
+        long plain = play(null, seed, battles);
+        double plainSeconds = (System.nanoTime() - start) / 1e9;
+        double plainCpu = (threads.getCurrentThreadCpuTime() - cpu) / 1e9;
+
+        long events;
+        double loggedCpu;
+        start = System.nanoTime();
+        cpu = threads.getCurrentThreadCpuTime();
+        try (MatchLog log = new MatchLog(path)) {
+            play(log, seed, battles);
+            loggedCpu = (threads.getCurrentThreadCpuTime() - cpu) / 1e9;
+            events = log.events();
+        }
+        double loggedSeconds = (System.nanoTime() - start) / 1e9;
+
+        System.out.printf("%d battles, %d attacks, seed %d%n", battles, plain, seed);
+        System.out.printf("no log   %.2f s  %.0f battles/s  turn loop %.2f s CPU%n", plainSeconds,
+            battles / plainSeconds, plainCpu);
+        System.out.printf("logged   %.2f s  %.0f battles/s  %+.1f%%  turn loop %.2f s CPU  %+.1f%%%n", loggedSeconds,
+            battles / loggedSeconds, (loggedSeconds / plainSeconds - 1) * 100, loggedCpu,
+            (loggedCpu / plainCpu - 1) * 100);
+        System.out.printf("Wrote %s: %d events, %d bytes%n", path, events, Files.size(path));
+    }
+
+    private static long play(MatchLog log, long seed, long battles) {
+        BattleEngine engine = new BattleEngine(Rules.STANDARD, Rng.forMatch(seed));
+        engine.addListener(log);
+        Player player = new Player("dog");
+        Opponent opponent = new Opponent("cat");
+        long attacks = 0;
+        for (long i = 0; i < battles; i++) {
+            player.hp = player.maxHp;
+            player.sp = player.maxSp;
+            opponent.hp = opponent.maxHp;
+            opponent.sp = opponent.maxSp;
+            attacks += engine.runBattle(player, opponent, AttackPolicies.GREEDY, AttackPolicies.RANDOM);
+        }
+        return attacks;
+    }
+}
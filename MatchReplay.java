@@ -0,0 +1,261 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+// === MatchReplay Class ===
+// Reads a MatchLog back. Slots sit at fixed offsets, so seeking to an event
+// is a single read of the snapshot interval it falls in: the snapshot at the
+// front says which battle is in progress and the whole state, and the turns
+// after it bring the state up to the event. From there it re-renders the
+// battle one attack at a time.
+// Usage: java MatchReplay FILE [event] [count]
+//        without an event, summarises the whole log
+class MatchReplay implements Closeable {
+    static final String[] ATTACK_NAMES = { "", "Base Attack", "Secondary Attack", "Tertiary Attack" };
+    private static final int SCAN_SLOTS = 131072;
+
+    private final FileChannel channel;
+    private final long events;
+    private final ByteBuffer interval = ByteBuffer.allocate(MatchLog.RECORD_BYTES * MatchLog.SNAPSHOT_INTERVAL);
+
+    // The last slot read, decoded, and the state after it
+    int kind;
+    int flags;
+    int attack;
+    int roll;
+    int damage;
+    int spGained;
+    int playerId;
+    int opponentId;
+    int playerHp;
+    int playerSp;
+    int opponentHp;
+    int opponentSp;
+    long battleNumber;
+    long battleEvent;
+
+    MatchReplay(Path path) throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.READ);
+        ByteBuffer header = ByteBuffer.allocate(MatchLog.HEADER_BYTES);
+        while (header.hasRemaining() && channel.read(header, header.position()) > 0) {
+        }
+        header.flip();
+        if (header.remaining() < MatchLog.HEADER_BYTES || header.getInt() != MatchLog.MAGIC) {
+            channel.close();
+            throw new IOException("Not a match log");
+        }
+        int version = header.getInt();
+        int recordBytes = header.getInt();
+        int snapshotInterval = header.getInt();
+        if (version != MatchLog.VERSION || recordBytes != MatchLog.RECORD_BYTES
+            || snapshotInterval != MatchLog.SNAPSHOT_INTERVAL) {
+            channel.close();
+            throw new IOException("Unsupported match log version " + version);
+        }
+        long slots = (channel.size() - MatchLog.HEADER_BYTES) / MatchLog.RECORD_BYTES;
+        events = slots - (slots + MatchLog.SNAPSHOT_INTERVAL - 1) / MatchLog.SNAPSHOT_INTERVAL * MatchLog.SNAPSHOT_SLOTS;
+    }
+
+    long events() {
+        return events;
+    }
+
+    // Slot of an event: a snapshot ahead of every EVENTS_PER_INTERVAL events
+    private static long slotOf(long event) {
+        return event + (event / MatchLog.EVENTS_PER_INTERVAL + 1) * MatchLog.SNAPSHOT_SLOTS;
+    }
+
+    // Reads the event after the last one read, applying it to the state
+    void readEvent(long event) throws IOException {
+        checkEvent(event);
+        read(slotOf(event), 1);
+        decode(interval.getLong(), event);
+    }
+
+    // Reads the event with the state as it stood right after it, from the snapshot in front of it
+    void seek(long event) throws IOException {
+        checkEvent(event);
+        long slot = slotOf(event);
+        long snapshotSlot = slot / MatchLog.SNAPSHOT_INTERVAL * MatchLog.SNAPSHOT_INTERVAL;
+        read(snapshotSlot, (int) (slot - snapshotSlot + 1));
+        decode(interval.getLong(), -1);
+        decode(interval.getLong(), -1);
+        for (long e = event - (slot - snapshotSlot - MatchLog.SNAPSHOT_SLOTS); e <= event; e++) {
+            decode(interval.getLong(), e);
+        }
+    }
+
+    private void checkEvent(long event) {
+        if (event < 0 || event >= events) throw new IndexOutOfBoundsException("No event " + event);
+    }
+
+    private void read(long slot, int count) throws IOException {
+        interval.clear();
+        interval.limit(count * MatchLog.RECORD_BYTES);
+        long position = MatchLog.HEADER_BYTES + slot * MatchLog.RECORD_BYTES;
+        while (interval.hasRemaining()) {
+            if (channel.read(interval, position + interval.position()) < 0) throw new IOException("Truncated match log");
+        }
+        interval.flip();
+    }
+
+    private void decode(long slot, long event) {
+        kind = (int) (slot >>> 62);
+        switch (kind) {
+            case MatchLog.SNAPSHOT:
+                battleEvent = slot << 2 >> 2;
+                return;
+            case MatchLog.BATTLE:
+                playerId = (int) (slot >>> 54) & 0xff;
+                opponentId = (int) (slot >>> 46) & 0xff;
+                battleNumber = slot & (1L << 46) - 1;
+                battleEvent = event;
+                return;
+            case MatchLog.STATE:
+                playerHp = number(slot, 3);
+                playerSp = number(slot, 2);
+                opponentHp = number(slot, 1);
+                opponentSp = number(slot, 0);
+                return;
+            default:
+                flags = (int) (slot >>> 59) & 7;
+                attack = (int) (slot >>> 57) & 3;
+                roll = (int) (slot >>> 54) & 7;
+                damage = (int) (slot >>> 42) & MatchLog.AMOUNT_MASK;
+                spGained = (int) (slot >>> 30) & MatchLog.AMOUNT_MASK;
+                if ((flags & MatchLog.FLAG_OPPONENT) != 0) {
+                    playerHp = number(slot, 1);
+                    opponentSp = number(slot, 0);
+                } else {
+                    opponentHp = number(slot, 1);
+                    playerSp = number(slot, 0);
+                }
+        }
+    }
+
+    // The 15-bit number at the given position, counted from the low end
+    private static int number(long slot, int position) {
+        return (int) (slot >>> position * MatchLog.NUMBER_BITS & MatchLog.NUMBER_MASK);
+    }
+
+    // Index of the battle event for the battle that the event is part of, -1 if none
+    long battleFor(long event) throws IOException {
+        seek(event);
+        return battleEvent;
+    }
+
+    static String characterName(int id) {
+        return id < Game.ALL_CHARACTERS.size() ? Game.ALL_CHARACTERS.get(id) : "fighter";
+    }
+
+    // Renders count events from the given one, starting with the battle it is in
+    void show(Renderer out, long from, int count) throws IOException {
+        long battle = battleFor(from);
+        if (battle < 0) {
+            out.println("Event " + from + " is not part of a battle.");
+            return;
+        }
+        seek(battle);
+        String playerName = characterName(playerId);
+        String opponentName = characterName(opponentId);
+        out.println("Battle " + battleNumber + ": the " + playerName + " against the " + opponentName);
+
+        // Picks the numbers up from the event before the first one shown, the battle's own state at the latest
+        long first = Math.max(from, battle + 2);
+        seek(first - 1);
+        if (first > battle + 2) out.println("Seeking to attack " + (first - battle - 1) + "...");
+        Character player = new Character(playerName, playerHp, playerSp);
+        Character opponent = new Character(opponentName, opponentHp, opponentSp);
+        out.status(player, opponent);
+
+        long end = Math.min(events, from + count);
+        for (long e = first; e < end; e++) {
+            readEvent(e);
+            if (kind != MatchLog.TURN) break;
+            setState(player, opponent);
+            String name = (flags & MatchLog.FLAG_OPPONENT) != 0 ? opponent.name : player.name;
+            StringBuilder line = new StringBuilder();
+            line.append("[").append(e - battle - 1).append("] ").append(name).append(": ").append(ATTACK_NAMES[attack]);
+            if ((flags & MatchLog.FLAG_FELL_BACK) != 0) line.append(" (not enough SP)");
+            if (roll > 0) line.append(", rolled ").append(roll);
+            if ((flags & MatchLog.FLAG_SLIPPED) != 0) {
+                line.append(", slipped");
+            } else {
+                line.append(", ").append(damage).append(" damage");
+            }
+            if (spGained > 0) line.append(", +").append(spGained).append(" SP");
+            out.println(line.toString());
+            out.status(player, opponent);
+        }
+    }
+
+    private void setState(Character player, Character opponent) {
+        player.hp = playerHp;
+        player.sp = playerSp;
+        opponent.hp = opponentHp;
+        opponent.sp = opponentSp;
+    }
+
+    // Reads the whole log front to back in big blocks and totals it up; a
+    // battle ends on the turn that leaves the defender without HP
+    String summarize() throws IOException {
+        ByteBuffer block = ByteBuffer.allocateDirect(MatchLog.RECORD_BYTES * SCAN_SLOTS).order(ByteOrder.BIG_ENDIAN);
+        long position = MatchLog.HEADER_BYTES;
+        long battles = 0;
+        long playerWins = 0;
+        long turns = 0;
+        long defenderHp = MatchLog.NUMBER_MASK << MatchLog.NUMBER_BITS;
+        long playerTurn = (long) MatchLog.TURN << 62;
+        long playerTurnMask = 3L << 62 | (long) MatchLog.FLAG_OPPONENT << 59;
+        while (true) {
+            block.clear();
+            int read = channel.read(block, position);
+            if (read < MatchLog.RECORD_BYTES) break;
+            block.flip();
+            block.limit(block.limit() / MatchLog.RECORD_BYTES * MatchLog.RECORD_BYTES);
+            position += block.limit();
+            while (block.hasRemaining()) {
+                long slot = block.getLong();
+                int slotKind = (int) (slot >>> 62);
+                if (slotKind == MatchLog.BATTLE) {
+                    battles++;
+                } else if (slotKind == MatchLog.TURN) {
+                    turns++;
+                    if ((slot & playerTurnMask) == playerTurn && (slot & defenderHp) == 0) playerWins++;
+                }
+            }
+        }
+        return String.format("%d events, %d battles, %d attacks, player won %.2f%%", events, battles, turns,
+            battles == 0 ? 0 : 100.0 * playerWins / battles);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.out.println("Usage: java MatchReplay FILE [event] [count]");
+            return;
+        }
+        Renderer out = Renderer.console(Renderer.Mode.PLAIN);
+        try (MatchReplay replay = new MatchReplay(Paths.get(args[0]))) {
+            if (args.length < 2) {
+                long start = System.nanoTime();
+                String summary = replay.summarize();
+                out.println(String.format("%s (read in %.2f s)", summary, (System.nanoTime() - start) / 1e9));
+            } else {
+                long event = Long.parseLong(args[1]);
+                int count = args.length > 2 ? Integer.parseInt(args[2]) : 20;
+                replay.show(out, event, count);
+            }
+        }
+        out.close();
+    }
+}
@@ -0,0 +1,291 @@
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.CancelledKeyException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// === MatchServer Class ===
+// Text game sessions over TCP, one Game per connection. A single selector
+// thread accepts connections and reads every socket, cutting the bytes into
+// lines for each session's input queue. Each session runs on its own virtual
+// thread where the JDK has them (21 and later), otherwise on a platform
+// thread with a small stack, and writes its output straight to its socket.
+// Rules, narration, the character list and the policy table are loaded once
+// and shared; audio is off. A session holds a bounded number of unread lines
+// and one frame of unsent output, so its memory stays small however it is used.
+// Usage: java MatchServer [port] [maxSessions]
+public class MatchServer {
+    static final int DEFAULT_PORT = 7777;
+    private static final int MAX_LINE = 256;
+    private static final int MAX_QUEUED_LINES = 64;
+    private static final long PLATFORM_STACK = 256 * 1024;
+    private static final String END_OF_INPUT = new String("<eof>");
+
+    private final int maxSessions;
+    private final Selector selector;
+    private final ServerSocketChannel server;
+    private final ExecutorService sessions = sessionExecutor();
+    private final AudioManager silent = new AudioManager(false);
+    private final ByteBuffer readBuffer = ByteBuffer.allocateDirect(16 * 1024);
+
+    private final AtomicInteger active = new AtomicInteger();
+    private final AtomicLong started = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+
+    MatchServer(int port, int maxSessions) throws IOException {
+        this.maxSessions = maxSessions;
+        selector = Selector.open();
+        server = ServerSocketChannel.open();
+        server.bind(new InetSocketAddress(port), 4096);
+        server.configureBlocking(false);
+        server.register(selector, SelectionKey.OP_ACCEPT);
+    }
+
+    // Virtual threads through reflection so the server still builds and runs on JDK 17
+    static ExecutorService sessionExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool(task -> {
+                Thread thread = new Thread(null, task, "session", PLATFORM_STACK);
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    int port() {
+        return ((InetSocketAddress) server.socket().getLocalSocketAddress()).getPort();
+    }
+
+    void serve() throws IOException {
+        while (selector.isOpen()) {
+            selector.select();
+            Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+            while (keys.hasNext()) {
+                SelectionKey key = keys.next();
+                keys.remove();
+                if (!key.isValid()) continue;
+                if (key.isAcceptable()) {
+                    accept();
+                    continue;
+                }
+                Connection connection = (Connection) key.attachment();
+                if (key.isWritable()) connection.writeReady();
+                if (key.isValid() && key.isReadable()) connection.readReady();
+            }
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel;
+        while ((channel = server.accept()) != null) {
+            channel.configureBlocking(false);
+            channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            if (active.get() >= maxSessions) {
+                channel.write(ByteBuffer.wrap("Server full, try again later.\n".getBytes()));
+                channel.close();
+                continue;
+            }
+            Connection connection = new Connection(channel);
+            connection.key = channel.register(selector, SelectionKey.OP_READ, connection);
+            active.incrementAndGet();
+            started.incrementAndGet();
+            sessions.execute(() -> runSession(connection));
+        }
+    }
+
+    private void runSession(Connection connection) {
+        Renderer renderer = new Renderer(connection.output, Renderer.Mode.PLAIN);
+        UI.bind(new UI.Session(silent, connection, renderer));
+        try {
+            new Game(Rng.forMatch(), silent).start();
+        } catch (InputClosedException e) {
+            // The client went away
+        } catch (RuntimeException e) {
+            failed.incrementAndGet();
+            StackTraceElement[] trace = e.getStackTrace();
+            System.out.println("Error: Session failed: " + e + (trace.length > 0 ? " at " + trace[0] : ""));
+        } finally {
+            UI.unbind();
+            connection.close();
+            active.decrementAndGet();
+        }
+    }
+
+    // === Connection Class ===
+    // One client: the selector thread fills its line queue, its session thread
+    // takes lines from it and writes output through it
+    private final class Connection implements InputSource {
+        private final SocketChannel channel;
+        private final BlockingQueue<String> lines = new ArrayBlockingQueue<>(MAX_QUEUED_LINES + 1);
+        private final StringBuilder partial = new StringBuilder();
+        private final Semaphore drained = new Semaphore(0);
+        private volatile ByteBuffer unsent;
+        private volatile boolean closed;
+        private SelectionKey key;
+
+        final OutputStream output = new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                write(new byte[] { (byte) b }, 0, 1);
+            }
+
+            @Override
+            public void write(byte[] bytes, int offset, int length) throws IOException {
+                send(ByteBuffer.wrap(bytes, offset, length));
+            }
+        };
+
+        Connection(SocketChannel channel) {
+            this.channel = channel;
+        }
+
+        @Override
+        public String nextLine() {
+            String line;
+            try {
+                line = lines.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InputClosedException();
+            }
+            if (line == END_OF_INPUT) {
+                lines.offer(END_OF_INPUT);
+                throw new InputClosedException();
+            }
+            return line;
+        }
+
+        // Selector thread: reads what is there and queues every whole line
+        void readReady() {
+            readBuffer.clear();
+            int read;
+            try {
+                read = channel.read(readBuffer);
+            } catch (IOException e) {
+                read = -1;
+            }
+            if (read < 0) {
+                endInput();
+                return;
+            }
+            readBuffer.flip();
+            while (readBuffer.hasRemaining()) {
+                char c = (char) (readBuffer.get() & 0xff);
+                if (c == '\n') {
+                    String line = partial.toString();
+                    partial.setLength(0);
+                    if (!lines.offer(line) || lines.size() > MAX_QUEUED_LINES) {
+                        // Typing far ahead of the game, drop the connection rather than buffer without limit
+                        endInput();
+                        return;
+                    }
+                } else if (c != '\r' && partial.length() < MAX_LINE) {
+                    partial.append(c);
+                }
+            }
+        }
+
+        // Session thread: writes directly, and only waits on the selector when the socket is full
+        private void send(ByteBuffer bytes) throws IOException {
+            if (closed) throw new IOException("Connection closed");
+            channel.write(bytes);
+            if (!bytes.hasRemaining()) return;
+            unsent = bytes;
+            try {
+                key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+            } catch (CancelledKeyException e) {
+                throw new IOException("Connection closed");
+            }
+            selector.wakeup();
+            // endInput() sets closed before it looks at unsent, so one of the two always sees the other
+            if (closed) throw new IOException("Connection closed");
+            try {
+                drained.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while sending");
+            }
+            if (closed) throw new IOException("Connection closed");
+        }
+
+        // Selector thread: carries on with output the session could not finish
+        void writeReady() {
+            ByteBuffer bytes = unsent;
+            if (bytes == null) return;
+            try {
+                channel.write(bytes);
+            } catch (IOException e) {
+                endInput();
+                return;
+            }
+            if (bytes.hasRemaining()) return;
+            unsent = null;
+            key.interestOps(SelectionKey.OP_READ);
+            drained.release();
+        }
+
+        private void endInput() {
+            closed = true;
+            key.cancel();
+            lines.clear();
+            lines.offer(END_OF_INPUT);
+            if (unsent != null) {
+                unsent = null;
+                drained.release();
+            }
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+            try {
+                channel.close();
+            } catch (IOException e) {
+                // Already gone
+            }
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        int maxSessions = args.length > 1 ? Integer.parseInt(args[1]) : 20_000;
+
+        // Shared data is built once, before the first session needs it
+        PolicyTable.loadDefault();
+        Narration.preload();
+        AttackPolicies.forLevel(1);
+
+        MatchServer server = new MatchServer(port, maxSessions);
+        Thread stats = new Thread(() -> {
+            Runtime runtime = Runtime.getRuntime();
+            while (true) {
+                try {
+                    Thread.sleep(5000);
+                } catch (InterruptedException e) {
+                    return;
+                }
+                System.out.printf("%d sessions active, %d started, %d failed, heap %d MB%n", server.active.get(),
+                    server.started.get(), server.failed.get(), (runtime.totalMemory() - runtime.freeMemory()) >> 20);
+            }
+        }, "server-stats");
+        stats.setDaemon(true);
+        stats.start();
+        System.out.println("Furry Fists match server on port " + server.port() + " (" + server.sessions.getClass().getSimpleName() + ")");
+        server.serve();
+    }
+}
@@ -0,0 +1,153 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+// === MatchupSimulator Class ===
+// Batch mode: every ordered pairing of Game.ALL_CHARACTERS against every
+// opponent strategy, battles spread over all cores with fork-join.
+public class MatchupSimulator {
+    private static final int LEAF_BATTLES = 4096;
+
+    static final String[] STRATEGY_NAMES = { "random", "greedy" };
+    static final AttackPolicy[] STRATEGIES = { AttackPolicies.RANDOM, AttackPolicies.GREEDY };
+
+    static class Matchup {
+        final String playerName;
+        final String opponentName;
+        final int strategy;
+        MatchupStats stats;
+
+        Matchup(String playerName, String opponentName, int strategy) {
+            this.playerName = playerName;
+            this.opponentName = opponentName;
+            this.strategy = strategy;
+        }
+    }
+
+    private static class BattleTask extends RecursiveTask<MatchupStats> {
+        private static final long serialVersionUID = 1L;
+
+        private final Matchup matchup;
+        private final AttackPolicy playerPolicy;
+        private final Rng rng;
+        private final int battles;
+
+        BattleTask(Matchup matchup, AttackPolicy playerPolicy, Rng rng, int battles) {
+            this.matchup = matchup;
+            this.playerPolicy = playerPolicy;
+            this.rng = rng;
+            this.battles = battles;
+        }
+
+        @Override
+        protected MatchupStats compute() {
+            if (battles > LEAF_BATTLES) {
+                int half = battles / 2;
+                BattleTask left = new BattleTask(matchup, playerPolicy, rng.split(), half);
+                BattleTask right = new BattleTask(matchup, playerPolicy, rng.split(), battles - half);
+                left.fork();
+                MatchupStats stats = right.compute();
+                return stats.merge(left.join());
+            }
+
+            MatchupStats stats = new MatchupStats();
+            BattleEngine engine = new BattleEngine(Rules.STANDARD, rng);
+            AttackPolicy opponentPolicy = STRATEGIES[matchup.strategy];
+            Player player = new Player(matchup.playerName);
+            Opponent opponent = new Opponent(matchup.opponentName);
+            for (int i = 0; i < battles; i++) {
+                player.hp = player.maxHp;
+                player.sp = player.maxSp;
+                opponent.hp = opponent.maxHp;
+                opponent.sp = opponent.maxSp;
+                int turns = engine.runBattle(player, opponent, playerPolicy, opponentPolicy);
+                stats.record(player.isAlive(), turns);
+            }
+            return stats;
+        }
+    }
+
+    private final ForkJoinPool pool;
+    private final AttackPolicy playerPolicy;
+    private final long seed;
+
+    public MatchupSimulator(ForkJoinPool pool, AttackPolicy playerPolicy, long seed) {
+        this.pool = pool;
+        this.playerPolicy = playerPolicy;
+        this.seed = seed;
+    }
+
+    public List<Matchup> run(int battlesPerMatchup) {
+        List<Matchup> matchups = new ArrayList<>();
+        for (String playerName : Game.ALL_CHARACTERS) {
+            for (String opponentName : Game.ALL_CHARACTERS) {
+                if (playerName.equals(opponentName)) continue;
+                for (int strategy = 0; strategy < STRATEGIES.length; strategy++) {
+                    matchups.add(new Matchup(playerName, opponentName, strategy));
+                }
+            }
+        }
+
+        // Children are split off in a fixed order, so a seed reproduces the whole run
+        Rng root = Rng.forMatch(seed);
+        List<BattleTask> tasks = new ArrayList<>();
+        for (int i = 0; i < matchups.size(); i++) {
+            tasks.add(new BattleTask(matchups.get(i), playerPolicy, root.split(), battlesPerMatchup));
+        }
+        pool.submit(() -> {
+            RecursiveTask.invokeAll(tasks);
+        }).join();
+        for (int i = 0; i < matchups.size(); i++) {
+            matchups.get(i).stats = tasks.get(i).join();
+        }
+        return matchups;
+    }
+
+    static AttackPolicy strategyByName(String name) {
+        for (int i = 0; i < STRATEGY_NAMES.length; i++) {
+            if (STRATEGY_NAMES[i].equalsIgnoreCase(name)) return STRATEGIES[i];
+        }
+        throw new IllegalArgumentException("Unknown strategy: " + name);
+    }
+
+    // Usage: java MatchupSimulator [battlesPerMatchup] [playerStrategy] [seed]
+    public static void main(String[] args) {
+        int battles = args.length > 0 ? Integer.parseInt(args[0]) : 100000;
+        String playerStrategy = args.length > 1 ? args[1] : "greedy";
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : System.nanoTime();
+
+        int cores = Runtime.getRuntime().availableProcessors();
+        ForkJoinPool pool = new ForkJoinPool(cores);
+        MatchupSimulator simulator = new MatchupSimulator(pool, strategyByName(playerStrategy), seed);
+
+        long start = System.nanoTime();
+        List<Matchup> matchups = simulator.run(battles);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        pool.shutdown();
+
+        System.out.println("Player strategy: " + playerStrategy + " | " + battles + " battles per matchup | seed " + seed);
+        System.out.printf("%-8s %-8s %-7s %8s %-17s %7s %7s%n",
+            "player", "opponent", "AI", "win %", "95% CI", "turns", "+/-");
+        MatchupStats[] perStrategy = new MatchupStats[STRATEGIES.length];
+        for (int i = 0; i < perStrategy.length; i++) perStrategy[i] = new MatchupStats();
+        for (Matchup matchup : matchups) {
+            printRow(matchup.playerName, matchup.opponentName, STRATEGY_NAMES[matchup.strategy], matchup.stats);
+            perStrategy[matchup.strategy].merge(matchup.stats);
+        }
+        System.out.println();
+        for (int i = 0; i < perStrategy.length; i++) {
+            printRow("all", "all", STRATEGY_NAMES[i], perStrategy[i]);
+        }
+
+        long total = (long) battles * matchups.size();
+        System.out.printf("%n%d battles in %.2f s on %d cores: %.0f battles/s%n", total, seconds, cores, total / seconds);
+    }
+
+    private static void printRow(String playerName, String opponentName, String strategy, MatchupStats stats) {
+        double[] interval = stats.winRateInterval();
+        System.out.printf("%-8s %-8s %-7s %7.2f%% [%6.2f, %6.2f] %7.2f %7.3f%n",
+            playerName, opponentName, strategy, stats.winRate() * 100,
+            interval[0] * 100, interval[1] * 100, stats.meanTurns(), stats.meanTurnsMargin());
+    }
+}
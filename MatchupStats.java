@@ -0,0 +1,50 @@
+// === MatchupStats Class ===
+// Totals for one matchup. Each fork-join leaf fills its own copy and the
+// copies are added together on join, so no counter is ever shared.
+class MatchupStats {
+    long battles;
+    long wins;
+    long turnSum;
+    long turnSquareSum;
+
+    void record(boolean playerWon, int turns) {
+        battles++;
+        if (playerWon) wins++;
+        turnSum += turns;
+        turnSquareSum += (long) turns * turns;
+    }
+
+    MatchupStats merge(MatchupStats other) {
+        battles += other.battles;
+        wins += other.wins;
+        turnSum += other.turnSum;
+        turnSquareSum += other.turnSquareSum;
+        return this;
+    }
+
+    double winRate() {
+        return battles == 0 ? 0 : (double) wins / battles;
+    }
+
+    // 95% Wilson score interval, stays sensible for win rates near 0 or 1
+    double[] winRateInterval() {
+        if (battles == 0) return new double[] { 0, 1 };
+        double z = 1.96;
+        double n = battles;
+        double p = winRate();
+        double centre = (p + z * z / (2 * n)) / (1 + z * z / n);
+        double margin = z * Math.sqrt(p * (1 - p) / n + z * z / (4 * n * n)) / (1 + z * z / n);
+        return new double[] { centre - margin, centre + margin };
+    }
+
+    double meanTurns() {
+        return battles == 0 ? 0 : (double) turnSum / battles;
+    }
+
+    double meanTurnsMargin() {
+        if (battles < 2) return 0;
+        double mean = meanTurns();
+        double variance = (turnSquareSum - battles * mean * mean) / (battles - 1);
+        return 1.96 * Math.sqrt(Math.max(variance, 0) / battles);
+    }
+}
@@ -0,0 +1,200 @@
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+// === Metrics Class ===
+// Where the time goes: latency histograms for turn resolution, input wait,
+// audio open and start, and render flushes, plus a few counters. Every
+// measured section is also a JFR event, so a flight recording shows the same
+// points on its timeline. All of it is off unless the furryfists.metrics
+// property is true when this class loads (Game --metrics sets it). The
+// switch is a static final, so with it off the JIT drops the timing code
+// from the call sites altogether.
+final class Metrics {
+    static final String PROPERTY = "furryfists.metrics";
+    static final boolean ENABLED = Boolean.getBoolean(PROPERTY);
+
+    static final Histogram TURN = new Histogram("turn resolution");
+    static final Histogram INPUT_WAIT = new Histogram("input wait");
+    static final Histogram AUDIO_OPEN = new Histogram("audio open");
+    static final Histogram AUDIO_START = new Histogram("audio start");
+    static final Histogram RENDER_FLUSH = new Histogram("render flush");
+    private static final Histogram[] HISTOGRAMS = { TURN, INPUT_WAIT, AUDIO_OPEN, AUDIO_START, RENDER_FLUSH };
+
+    static final LongAdder RENDER_BYTES = new LongAdder();
+    static final LongAdder AUDIO_ERRORS = new LongAdder();
+    private static volatile long firstPromptMillis;
+
+    private Metrics() {
+    }
+
+    // Called at every prompt, only the first one counts
+    static void promptShown() {
+        if (firstPromptMillis == 0) firstPromptMillis = System.currentTimeMillis();
+    }
+
+    static String summary() {
+        StringBuilder out = new StringBuilder(1024);
+        if (firstPromptMillis != 0) {
+            long sinceLaunch = firstPromptMillis - ManagementFactory.getRuntimeMXBean().getStartTime();
+            out.append(String.format("%nFirst prompt %d ms after the JVM started (target %d ms)", sinceLaunch,
+                StartupProbe.TARGET_MILLIS));
+        }
+        out.append(String.format("%n%-16s %9s %9s %9s %9s %9s %9s%n", "Metrics", "count", "mean", "p50", "p90", "p99", "max"));
+        for (Histogram histogram : HISTOGRAMS) {
+            out.append(histogram.summaryLine()).append(System.lineSeparator());
+        }
+        out.append(String.format("%-16s %9d%n", "render bytes", RENDER_BYTES.sum()));
+        out.append(String.format("%-16s %9d%n", "audio errors", AUDIO_ERRORS.sum()));
+        return out.toString();
+    }
+
+    static String formatNanos(long nanos) {
+        if (nanos < 10_000) return nanos + " ns";
+        if (nanos < 10_000_000) return String.format("%.1f us", nanos / 1e3);
+        if (nanos < 10_000_000_000L) return String.format("%.1f ms", nanos / 1e6);
+        return String.format("%.1f s", nanos / 1e9);
+    }
+
+    // === Span Class ===
+    // A timed section: begun when created, ended into its histogram
+    abstract static class Span extends Event {
+        private final transient long started;
+
+        Span() {
+            started = System.nanoTime();
+            begin();
+        }
+
+        void end(Histogram histogram) {
+            histogram.record(System.nanoTime() - started);
+            commit();
+        }
+    }
+
+    @Name("furryfists.TurnResolved")
+    @Label("Turn Resolved")
+    @Category("Furry Fists")
+    static final class TurnEvent extends Span {
+        @Label("Attack")
+        int attack;
+        @Label("Damage Dealt")
+        int damage;
+        @Label("Slipped")
+        boolean slipped;
+    }
+
+    @Name("furryfists.InputWait")
+    @Label("Input Wait")
+    @Category("Furry Fists")
+    @Description("Waiting for the player to enter a line")
+    static final class InputEvent extends Span {
+    }
+
+    @Name("furryfists.AudioOpen")
+    @Label("Audio Open")
+    @Category("Furry Fists")
+    @Description("Decoding a sound and opening its line or clips")
+    static final class AudioOpenEvent extends Span {
+        @Label("Asset")
+        String asset;
+    }
+
+    @Name("furryfists.AudioStart")
+    @Label("Audio Start")
+    @Category("Furry Fists")
+    @Description("Starting a sound that is already open")
+    static final class AudioStartEvent extends Span {
+        @Label("Asset")
+        String asset;
+    }
+
+    @Name("furryfists.RenderFlush")
+    @Label("Render Flush")
+    @Category("Furry Fists")
+    static final class RenderEvent extends Span {
+        @Label("Bytes")
+        int bytes;
+    }
+}
+
+// === Histogram Class ===
+// HDR-style latency histogram in nanoseconds: exact below 32, then 32
+// buckets per power of two, so every bucket is within about 3% of the value
+// it holds. Recording is lock-free and allocates nothing.
+final class Histogram {
+    private static final int SUB_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+    private static final int BUCKETS = (64 - SUB_BITS) * SUB_BUCKETS;
+
+    private final String name;
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder total = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    Histogram(String name) {
+        this.name = name;
+    }
+
+    void record(long nanos) {
+        if (nanos < 0) nanos = 0;
+        counts.getAndIncrement(bucket(nanos));
+        count.increment();
+        total.add(nanos);
+        long seen = max.get();
+        while (nanos > seen && !max.compareAndSet(seen, nanos)) {
+            seen = max.get();
+        }
+    }
+
+    static int bucket(long value) {
+        if (value < SUB_BUCKETS) return (int) value;
+        int top = 63 - Long.numberOfLeadingZeros(value);
+        int shift = top - SUB_BITS;
+        return (shift + 1) * SUB_BUCKETS + (int) (value >>> shift) - SUB_BUCKETS;
+    }
+
+    // The middle of the range of values that land in the bucket
+    static long valueOf(int bucket) {
+        if (bucket < SUB_BUCKETS) return bucket;
+        int shift = bucket / SUB_BUCKETS - 1;
+        long low = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+        return low + ((1L << shift) >> 1);
+    }
+
+    long count() {
+        return count.sum();
+    }
+
+    long max() {
+        return max.get();
+    }
+
+    // Smallest recorded value with at least percentile% of samples at or below it, to bucket precision
+    long percentile(double percentile) {
+        long samples = count();
+        if (samples == 0) return 0;
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * samples));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= rank) return Math.min(valueOf(i), max());
+        }
+        return max();
+    }
+
+    String summaryLine() {
+        long samples = count();
+        if (samples == 0) return String.format("%-16s %9d", name, 0);
+        return String.format("%-16s %9d %9s %9s %9s %9s %9s", name, samples,
+            Metrics.formatNanos(total.sum() / samples), Metrics.formatNanos(percentile(50)),
+            Metrics.formatNanos(percentile(90)), Metrics.formatNanos(percentile(99)), Metrics.formatNanos(max()));
+    }
+}
@@ -0,0 +1,128 @@
+import java.util.concurrent.Callable;
+import java.util.concurrent.locks.LockSupport;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+
+// === MusicStream Class ===
+// A looping music track decoded a chunk at a time. A decoder thread fills a
+// single-producer/single-consumer ring buffer and the mixer thread drains it,
+// so memory is bounded by the ring, not by the length of the track.
+class MusicStream implements Runnable {
+    private static final int RING_FRAMES = 16384; // about 370 ms at 44.1 kHz
+    private static final int CHUNK_BYTES = 4096;
+    private static final long FULL_WAIT_NANOS = 2_000_000L;
+
+    private final String name;
+    private final Callable<AudioInputStream> opener;
+    private final short[] ring = new short[RING_FRAMES * 2];
+    private final int mask = ring.length - 1;
+    private volatile long writePos; // only the decoder thread advances this
+    private volatile long readPos;  // only the mixer thread advances this
+    private volatile boolean closed;
+
+    // Gain ramp, only touched by the mixer thread
+    private float gain;
+    private float target;
+    private float step;
+
+    private MusicStream(String name, Callable<AudioInputStream> opener) {
+        this.name = name;
+        this.opener = opener;
+    }
+
+    // Starts decoding straight away so the ring is filling while the mixer fades in
+    static MusicStream start(String name, Callable<AudioInputStream> opener) {
+        MusicStream stream = new MusicStream(name, opener);
+        Thread decoder = new Thread(stream, "music-decoder");
+        decoder.setDaemon(true);
+        decoder.start();
+        return stream;
+    }
+
+    void close() {
+        closed = true;
+    }
+
+    void fadeTo(float targetGain, int frames) {
+        target = targetGain;
+        step = (targetGain - gain) / Math.max(frames, 1);
+    }
+
+    void setGain(float newGain) {
+        gain = newGain;
+        target = newGain;
+        step = 0;
+    }
+
+    boolean isSilent() {
+        return gain == 0 && target == 0;
+    }
+
+    // The decoder gave up and everything it produced has been played
+    boolean isFinished() {
+        return closed && readPos == writePos;
+    }
+
+    // Adds one block to the mix, ramping the gain per frame. An underrun plays silence.
+    void mixInto(int[] mix) {
+        long read = readPos;
+        int available = (int) Math.min(mix.length, writePos - read);
+        for (int i = 0; i < mix.length; i += 2) {
+            if (gain != target) {
+                gain += step;
+                if (step > 0 ? gain > target : gain < target) gain = target;
+            }
+            if (i < available) {
+                mix[i] += (int) (ring[(int) (read + i) & mask] * gain);
+                mix[i + 1] += (int) (ring[(int) (read + i + 1) & mask] * gain);
+            }
+        }
+        readPos = read + available;
+    }
+
+    @Override
+    public void run() {
+        byte[] chunk = new byte[CHUNK_BYTES];
+        while (!closed) {
+            try (AudioInputStream source = opener.call()) {
+                AudioInputStream in = source;
+                if (!source.getFormat().matches(AudioMixer.FORMAT)) {
+                    in = AudioSystem.getAudioInputStream(AudioMixer.FORMAT, source);
+                }
+                long total = 0;
+                int bytes;
+                while (!closed && (bytes = in.readNBytes(chunk, 0, chunk.length)) > 0) {
+                    push(chunk, bytes - bytes % AudioMixer.FORMAT.getFrameSize());
+                    total += bytes;
+                }
+                if (total == 0) {
+                    closed = true; // An empty track would otherwise reopen forever
+                }
+            } catch (Exception e) {
+                System.err.println("Error: Unable to play audio: " + name);
+                closed = true;
+            }
+            // Falling through reopens the track, the ring covers the gap so the loop is seamless
+        }
+    }
+
+    private void push(byte[] chunk, int bytes) {
+        int samples = bytes / 2;
+        int offset = 0;
+        while (offset < samples && !closed) {
+            long write = writePos;
+            int free = (int) (ring.length - (write - readPos));
+            if (free == 0) {
+                LockSupport.parkNanos(FULL_WAIT_NANOS);
+                continue;
+            }
+            int count = Math.min(free, samples - offset);
+            for (int i = 0; i < count; i++) {
+                int b = 2 * (offset + i);
+                ring[(int) (write + i) & mask] = (short) ((chunk[b] & 0xff) | (chunk[b + 1] << 8));
+            }
+            writePos = write + count;
+            offset += count;
+        }
+    }
+}
@@ -0,0 +1,193 @@
+import java.util.ArrayList;
+import java.util.List;
+
+// === MessageTemplate Class ===
+// One message parsed once into fixed text fragments and numbered slots.
+// "{attacker}"/"{winner}" fill slot 0, "{defender}"/"{loser}" fill slot 1.
+class MessageTemplate {
+    private final String[] fragments; // text before each slot, plus the tail
+    private final int[] slots;
+
+    MessageTemplate(String pattern) {
+        List<String> text = new ArrayList<>();
+        List<Integer> slotList = new ArrayList<>();
+        int start = 0;
+        int open;
+        while ((open = pattern.indexOf('{', start)) >= 0) {
+            int close = pattern.indexOf('}', open);
+            if (close < 0) break;
+            int slot = slotFor(pattern.substring(open + 1, close));
+            if (slot < 0) {
+                throw new IllegalArgumentException("Unknown slot in message: " + pattern);
+            }
+            text.add(pattern.substring(start, open));
+            slotList.add(slot);
+            start = close + 1;
+        }
+        text.add(pattern.substring(start));
+        fragments = text.toArray(new String[0]);
+        slots = new int[slotList.size()];
+        for (int i = 0; i < slots.length; i++) slots[i] = slotList.get(i);
+    }
+
+    private static int slotFor(String name) {
+        switch (name) {
+            case "attacker":
+            case "winner":
+                return 0;
+            case "defender":
+            case "loser":
+                return 1;
+        }
+        return -1;
+    }
+
+    void appendTo(StringBuilder out, String first, String second) {
+        for (int i = 0; i < slots.length; i++) {
+            out.append(fragments[i]).append(slots[i] == 0 ? first : second);
+        }
+        out.append(fragments[slots.length]);
+    }
+
+    String render(String first, String second) {
+        StringBuilder out = new StringBuilder(128);
+        appendTo(out, first, second);
+        return out.toString();
+    }
+}
+
+// === MessageSet Class ===
+// The variants of one kind of message. Every variant is rendered ahead of
+// time for each pair of names in Game.ALL_CHARACTERS, so picking a message
+// is an array lookup. Other names fall back to rendering from the fragments.
+class MessageSet {
+    private static final List<String> NAMES = Game.ALL_CHARACTERS;
+
+    private final MessageTemplate[] templates;
+    private final String[][] rendered; // [first * names + second][variant]
+
+    MessageSet(String... patterns) {
+        templates = new MessageTemplate[patterns.length];
+        for (int i = 0; i < patterns.length; i++) {
+            templates[i] = new MessageTemplate(patterns[i]);
+        }
+        int names = NAMES.size();
+        rendered = new String[names * names][];
+        for (int first = 0; first < names; first++) {
+            for (int second = 0; second < names; second++) {
+                String[] variants = new String[templates.length];
+                for (int i = 0; i < templates.length; i++) {
+                    variants[i] = templates[i].render(NAMES.get(first), NAMES.get(second));
+                }
+                rendered[first * names + second] = variants;
+            }
+        }
+    }
+
+    private static int idOf(String name) {
+        for (int i = 0; i < NAMES.size(); i++) {
+            if (NAMES.get(i).equals(name)) return i;
+        }
+        return -1;
+    }
+
+    // Picks a variant and returns it; allocation free for known names
+    String pick(Rng rng, String first, String second) {
+        int variant = rng.nextInt(templates.length);
+        int a = idOf(first);
+        int b = idOf(second);
+        if (a >= 0 && b >= 0) {
+            return rendered[a * NAMES.size() + b][variant];
+        }
+        return templates[variant].render(first, second);
+    }
+
+    // Picks a variant and writes it into the caller's buffer
+    void appendTo(StringBuilder out, Rng rng, String first, String second) {
+        int variant = rng.nextInt(templates.length);
+        int a = idOf(first);
+        int b = idOf(second);
+        if (a >= 0 && b >= 0) {
+            out.append(rendered[a * NAMES.size() + b][variant]);
+        } else {
+            templates[variant].appendTo(out, first, second);
+        }
+    }
+}
+
+// === Narration Class ===
+class Narration {
+    static final MessageSet NO_DAMAGE = new MessageSet(
+        "The {attacker} lunged forward but tripped over its own feet, causing no damage at all!",
+        "In a hilarious blunder, the {attacker} swung wildly and hit nothing but air!",
+        "The {attacker} got distracted by a passing butterfly and forgot to attack, doing no damage!",
+        "Whoops! The {attacker} tried to strike but slipped on a banana peel, dealing no damage!",
+        "The {attacker} let out a mighty battle cry, then sneezed mid-attack, resulting in zero damage!"
+    );
+
+    static final MessageSet ATTACK = new MessageSet(
+        "With a sickening crunch, the {attacker} tore into the {defender}'s flesh!",
+        "Blood sprayed as the {attacker} ripped the {defender} apart!",
+        "The {attacker} unleashed a flurry of savage blows, leaving the {defender} screaming in agony!",
+        "A guttural roar escaped the {attacker} as it relentlessly mauled the {defender}!",
+        "The {attacker} snarled viciously, tearing chunks from the {defender} with ruthless abandon!",
+        "In a frenzy of teeth and claws, the {attacker} shredded the {defender} until crimson covered the floor!",
+        "The {attacker} cackled, delighting in the {defender}'s torment as it savored every brutal strike!"
+    );
+
+    static final MessageSet VICTORY = new MessageSet(
+        "====================================\n" +
+        "With a final, bone-crunching blow, the {winner} left the {loser}'s twitching corpse in a pool of blood.\n" +
+        "YOU ARE VICTORIOUS!\n" +
+        "====================================",
+
+        "====================================\n" +
+        "The {winner} stood triumphantly over the mangled, unrecognizable remains of the {loser}, roaring in savage triumph!\n" +
+        "YOU ARE VICTORIOUS!\n" +
+        "====================================",
+
+        "====================================\n" +
+        "A final, ear-splitting shriek marked the end as the {winner} dismembered the {loser} with merciless precision.\n" +
+        "YOU ARE VICTORIOUS!\n" +
+        "====================================",
+
+        "====================================\n" +
+        "The {winner} huffed, dripping with gore, as the {loser} lay scattered in pieces. Victory never tasted so bitter.\n" +
+        "YOU ARE VICTORIOUS!\n" +
+        "====================================",
+
+        "====================================\n" +
+        "In an explosion of entrails and howling fury, the {winner} ended the {loser} once and for all.\n" +
+        "YOU ARE VICTORIOUS!\n" +
+        "===================================="
+    );
+
+    static final MessageSet DEFEAT = new MessageSet(
+        "You have been mauled to death by the pitiless {winner}, your screams swallowed by the crimson aftermath.",
+        "The {winner} cackled as the {loser}'s lifeless, shredded corpse sank into the sticky mire of gore.",
+        "With no mercy, the {winner} reduced the {loser} to a heap of splintered bones and torn flesh.",
+        "A wet snap signaled the end: the {winner} had utterly obliterated the {loser}, leaving nothing but ruin.",
+        "The {winner} feasted on the {loser}'s remains, savoring the taste of hopeless defeat."
+    );
+
+    // Empty on purpose: the first call loads the class, which pre-renders every
+    // message set for every pairing, so callers can get that done ahead of the first battle
+    static void preload() {
+    }
+
+    static String noDamageMessage(Rng rng, String attacker) {
+        return NO_DAMAGE.pick(rng, attacker, attacker);
+    }
+
+    static String gruesomeAttackMessage(Rng rng, String attacker, String defender) {
+        return ATTACK.pick(rng, attacker, defender);
+    }
+
+    static String gruesomeVictoryMessage(Rng rng, String winner, String loser) {
+        return VICTORY.pick(rng, winner, loser);
+    }
+
+    static String gruesomeDefeatMessage(Rng rng, String winner, String loser) {
+        return DEFEAT.pick(rng, winner, loser);
+    }
+}
@@ -0,0 +1,147 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+// === PolicyTable Class ===
+// The best attack for every reachable state of a standard battle, seen from
+// the side about to attack, two bits per state and memory-mapped read-only.
+// Layout, big-endian:
+//   "FFPT" | version int | rules fingerprint long | max HP int | start SP int
+//   HP value count int | HP values | SP value count int | SP values
+//   attacks, four states per byte from the low bits up, 0 for unreachable states
+// A table built from different rules is refused, so a rules change means a rebuild.
+class PolicyTable {
+    static final String DEFAULT_FILE = "policy.ffpt";
+    static final int MAGIC = 0x46465054; // "FFPT"
+    static final int VERSION = 1;
+    private static final int HEADER_BYTES = 24; // up to the HP value count
+    private static final int MAX_VALUE = 1 << 16; // far above any HP or SP a table is built for
+
+    private static volatile PolicyTable standard;
+    private static boolean loading;
+    private static volatile boolean failed;
+
+    private final ByteBuffer packed;
+    private final int[] hpIndex;
+    private final int[] spIndex;
+    private final int hpCount;
+    private final int spCount;
+
+    private PolicyTable(ByteBuffer mapped, Rules rules) throws IOException {
+        ByteBuffer header = mapped.duplicate().order(ByteOrder.BIG_ENDIAN);
+        if (header.remaining() < HEADER_BYTES || header.getInt() != MAGIC) {
+            throw new IOException("Not a policy table");
+        }
+        int version = header.getInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported policy table version " + version);
+        }
+        if (header.getLong() != rules.fingerprint()) {
+            throw new IOException("Policy table was built for different rules");
+        }
+        int maxHp = header.getInt();
+        int startSp = header.getInt();
+        if (maxHp <= 0 || maxHp > MAX_VALUE || startSp < 0 || startSp > MAX_VALUE) {
+            throw new IOException("Corrupt policy table header");
+        }
+        int maxSp = Math.max(startSp, rules.spCap);
+        hpIndex = readIndex(header, maxHp);
+        spIndex = readIndex(header, maxSp);
+        hpCount = WinProbabilitySolver.count(hpIndex);
+        spCount = WinProbabilitySolver.count(spIndex);
+        long states = (long) hpCount * spCount * hpCount * spCount;
+        if (header.remaining() < (states + 3) / 4) {
+            throw new IOException("Truncated policy table");
+        }
+        packed = header.slice();
+    }
+
+    private static int[] readIndex(ByteBuffer header, int max) throws IOException {
+        int[] index = new int[max + 1];
+        Arrays.fill(index, -1);
+        if (header.remaining() < 4) throw new IOException("Truncated policy table");
+        int count = header.getInt();
+        if (count < 0 || count > max + 1 || header.remaining() < count * 4) {
+            throw new IOException("Corrupt policy table index");
+        }
+        for (int i = 0; i < count; i++) {
+            int value = header.getInt();
+            if (value < 0 || value > max) throw new IOException("Corrupt policy table index");
+            index[value] = i;
+        }
+        return index;
+    }
+
+    static PolicyTable open(Path path, Rules rules) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return new PolicyTable(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()), rules);
+        } catch (RuntimeException e) {
+            // Whatever the checks missed still means a rebuild, not a dead caller
+            throw new IOException("Corrupt policy table", e);
+        }
+    }
+
+    // Maps the default table for the standard rules. When it is missing or was
+    // built from other rules it is rebuilt on a background thread, and
+    // standard() stays null until the new one is in place. A rebuild that
+    // fails is not tried again for the rest of the run.
+    static void loadDefault() {
+        synchronized (PolicyTable.class) {
+            if (loading || standard != null) return;
+            loading = true;
+        }
+        Path path = Paths.get(DEFAULT_FILE);
+        try {
+            standard = open(path, Rules.STANDARD);
+            return;
+        } catch (NoSuchFileException e) {
+            // First run, build it below
+        } catch (IOException e) {
+            // Off the game's renderer, since this runs on warm-up and server threads
+            System.err.println("Rebuilding policy table: " + e.getMessage());
+        }
+        Thread thread = new Thread(() -> {
+            try {
+                PolicyTableBuilder.build(Rules.STANDARD, 100, 100, path);
+                standard = open(path, Rules.STANDARD);
+            } catch (IOException e) {
+                // The hard level keeps using its fallback
+                failed = true;
+                System.err.println("Error: Unable to build policy table: " + e.getMessage());
+            }
+        }, "policy-table");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    // The mapped standard table, or null while it is not available
+    static PolicyTable standard() {
+        return standard;
+    }
+
+    // True once the rebuild has failed, so standard() will stay null
+    static boolean failed() {
+        return failed;
+    }
+
+    // The attack to make, or 0 when the state is outside the table
+    int attackFor(int moverHp, int moverSp, int otherHp, int otherSp) {
+        if (moverHp <= 0 || moverHp >= hpIndex.length || otherHp <= 0 || otherHp >= hpIndex.length
+                || moverSp < 0 || moverSp >= spIndex.length || otherSp < 0 || otherSp >= spIndex.length) {
+            return 0;
+        }
+        int a = hpIndex[moverHp];
+        int b = spIndex[moverSp];
+        int c = hpIndex[otherHp];
+        int d = spIndex[otherSp];
+        if (a < 0 || b < 0 || c < 0 || d < 0) return 0;
+        int state = ((a * spCount + b) * hpCount + c) * spCount + d;
+        return packed.get(state >>> 2) >>> ((state & 3) * 2) & 3;
+    }
+}
@@ -0,0 +1,192 @@
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+
+// === PolicyTableBuilder Class ===
+// Solves a standard battle with both sides playing perfectly and writes the
+// best attack for every reachable state as a PolicyTable. The rules are the
+// same for both sides, so one table seen from the side to move covers both.
+// A slipped base attack hands the same numbers to the other side, and the
+// two values that share that loop are settled together by iterating to a
+// fixed point; every other outcome moves the battle on.
+// Usage: java PolicyTableBuilder [output]
+public class PolicyTableBuilder {
+    private final Rules rules;
+    private final double slip;
+    private final double refundChance;
+    private final int maxHp;
+    private final int startSp;
+    private final int[] hpIndex;
+    private final int[] spIndex;
+    private final int hpCount;
+    private final int spCount;
+
+    private final float[] value; // chance the side to move wins, NaN until solved
+    private final byte[] best;
+
+    // Results of the last choices() call, read straight after it
+    private double outSpecial;
+    private int outSpecialAttack;
+    private double outBaseHit;
+
+    PolicyTableBuilder(Rules rules, int maxHp, int startSp) {
+        this.rules = rules;
+        this.slip = rules.slipPercent / 100.0;
+        this.refundChance = Math.max(0, Math.min(6, 7 - rules.refundRoll)) / 6.0;
+        this.maxHp = maxHp;
+        this.startSp = startSp;
+        hpIndex = WinProbabilitySolver.reachableHp(rules, maxHp);
+        spIndex = WinProbabilitySolver.reachableSp(rules, startSp, Math.max(startSp, rules.spCap));
+        hpCount = WinProbabilitySolver.count(hpIndex);
+        spCount = WinProbabilitySolver.count(spIndex);
+        value = new float[hpCount * spCount * hpCount * spCount];
+        best = new byte[value.length];
+        Arrays.fill(value, Float.NaN);
+    }
+
+    // Solves and writes the table, on a thread with room for the deep recursion
+    static void build(Rules rules, int maxHp, int startSp, Path output) throws IOException {
+        PolicyTableBuilder builder = new PolicyTableBuilder(rules, maxHp, startSp);
+        Thread solver = new Thread(null, builder::solveAll, "policy-solver", 16L << 20);
+        solver.start();
+        try {
+            solver.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while solving the policy table");
+        }
+        builder.write(output);
+    }
+
+    void solveAll() {
+        solve(maxHp, startSp, maxHp, startSp);
+    }
+
+    double winChance(int moverHp, int moverSp, int otherHp, int otherSp) {
+        return value[solve(moverHp, moverSp, otherHp, otherSp)];
+    }
+
+    private int index(int moverHp, int moverSp, int otherHp, int otherSp) {
+        return ((hpIndex[moverHp] * spCount + spIndex[moverSp]) * hpCount + hpIndex[otherHp]) * spCount
+            + spIndex[otherSp];
+    }
+
+    private int solve(int mh, int ms, int oh, int os) {
+        int i = index(mh, ms, oh, os);
+        if (!Float.isNaN(value[i])) return i;
+
+        choices(mh, ms, oh, os);
+        double specialA = outSpecial;
+        int attackA = outSpecialAttack;
+        double baseA = outBaseHit;
+        int j = index(oh, os, mh, ms);
+        if (j == i) {
+            // Both sides hold the same numbers, so the loop comes straight back here
+            double base = (baseA + slip) / (1 + slip);
+            store(i, Math.max(specialA, base), base >= specialA ? Rules.BASE_ATTACK : attackA);
+            return i;
+        }
+
+        choices(oh, os, mh, ms);
+        double specialB = outSpecial;
+        int attackB = outSpecialAttack;
+        double baseB = outBaseHit;
+        // Each side's base attack is worth its hit plus, on a slip, whatever the
+        // other side cannot win from the same numbers. Shrinks by slip^2 a round.
+        double a = 0.5;
+        double b = 0.5;
+        for (int round = 0; round < 100; round++) {
+            double nextA = Math.max(specialA, baseA + slip * (1 - b));
+            double nextB = Math.max(specialB, baseB + slip * (1 - nextA));
+            boolean settled = Math.abs(nextA - a) < 1e-12 && Math.abs(nextB - b) < 1e-12;
+            a = nextA;
+            b = nextB;
+            if (settled) break;
+        }
+        store(i, a, baseA + slip * (1 - b) >= specialA ? Rules.BASE_ATTACK : attackA);
+        store(j, b, baseB + slip * (1 - a) >= specialB ? Rules.BASE_ATTACK : attackB);
+        return i;
+    }
+
+    private void store(int i, double win, int attack) {
+        value[i] = (float) win;
+        best[i] = (byte) attack;
+    }
+
+    // The best special attack and its value, and the base attack's value without
+    // its slip, which is the part that depends on the other side's reply
+    private void choices(int mh, int ms, int oh, int os) {
+        int hitHp = oh - rules.baseDamage;
+        double baseHit = (1 - slip) * (hitHp <= 0 ? 1 : 1 - value[solve(hitHp, os, mh, bonus(oh, hitHp, ms))]);
+
+        double bestSpecial = -1;
+        int bestAttack = Rules.BASE_ATTACK;
+        for (int attack = Rules.TERTIARY_ATTACK; attack > Rules.BASE_ATTACK; attack--) {
+            if (!rules.canAfford(attack, ms)) continue;
+            int cost = rules.cost(attack);
+            double win = 0;
+            if (refundChance < 1) win += slip * (1 - refundChance) * (1 - value[solve(oh, os, mh, ms - cost)]);
+            if (refundChance > 0) win += slip * refundChance * (1 - value[solve(oh, os, mh, ms - cost + cost / 2)]);
+            for (int roll = 1; roll <= 6; roll++) {
+                int paid = ms - cost + (roll >= rules.refundRoll ? cost / 2 : 0);
+                int rolledHp = oh - rules.damage(attack, roll);
+                win += (1 - slip) / 6 * (rolledHp <= 0 ? 1 : 1 - value[solve(rolledHp, os, mh, bonus(oh, rolledHp, paid))]);
+            }
+            if (win > bestSpecial) {
+                bestSpecial = win;
+                bestAttack = attack;
+            }
+        }
+        outSpecial = bestSpecial;
+        outSpecialAttack = bestAttack;
+        outBaseHit = baseHit;
+    }
+
+    private int bonus(int hpBefore, int hpAfter, int sp) {
+        if (hpBefore >= rules.bonusHpThreshold && hpAfter < rules.bonusHpThreshold && sp < rules.spCap) {
+            return sp + Math.min(rules.bonusSp, rules.spCap - sp);
+        }
+        return sp;
+    }
+
+    void write(Path output) throws IOException {
+        byte[] packed = new byte[(best.length + 3) / 4];
+        for (int i = 0; i < best.length; i++) {
+            packed[i >>> 2] |= (byte) (best[i] << ((i & 3) * 2));
+        }
+
+        // Written beside the target and moved into place so a running game never maps half a file
+        Path temp = Files.createTempFile(output.toAbsolutePath().getParent(), "policy", ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+            out.writeInt(PolicyTable.MAGIC);
+            out.writeInt(PolicyTable.VERSION);
+            out.writeLong(rules.fingerprint());
+            out.writeInt(maxHp);
+            out.writeInt(startSp);
+            writeValues(out, hpIndex);
+            writeValues(out, spIndex);
+            out.write(packed);
+        }
+        Files.move(temp, output, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static void writeValues(DataOutputStream out, int[] index) throws IOException {
+        out.writeInt(WinProbabilitySolver.count(index));
+        for (int value = 0; value < index.length; value++) {
+            if (index[value] >= 0) out.writeInt(value);
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        Path output = Paths.get(args.length > 0 ? args[0] : PolicyTable.DEFAULT_FILE);
+        long start = System.nanoTime();
+        build(Rules.STANDARD, 100, 100, output);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("Wrote %s (%d bytes) in %.1f s%n", output, Files.size(output), seconds);
+    }
+}
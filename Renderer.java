@@ -0,0 +1,148 @@
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+// === Renderer Class ===
+// Collects everything the game prints into one reusable frame buffer and
+// writes it with a single write and flush, normally just before the game
+// waits for input. Modes:
+//   PLAIN - the classic scrolling output
+//   ANSI  - HP/SP pinned to the top two lines, redrawn only when they change
+//   QUIET - nothing is written, for bulk and automated runs
+class Renderer {
+    enum Mode { PLAIN, ANSI, QUIET }
+
+    private static final String ESC = "\033[";
+
+    private final OutputStream out;
+    private final Mode mode;
+    private final StringBuilder frame = new StringBuilder(4096);
+    private byte[] bytes = new byte[8192];
+    private boolean ansiStarted;
+
+    // What the pinned status lines show right now, ANSI mode only
+    private String shownLeftName;
+    private String shownRightName;
+    private int shownLeftHp = -1, shownLeftSp = -1, shownRightHp = -1, shownRightSp = -1;
+
+    Renderer(OutputStream out, Mode mode) {
+        this.out = out;
+        this.mode = mode;
+    }
+
+    // Writes to the process's stdout directly, skipping the synchronized System.out
+    static Renderer console(Mode mode) {
+        return new Renderer(new FileOutputStream(FileDescriptor.out), mode);
+    }
+
+    boolean pinsStatus() {
+        return mode == Mode.ANSI;
+    }
+
+    void print(String text) {
+        if (mode != Mode.QUIET) frame.append(text);
+    }
+
+    void println(String text) {
+        if (mode != Mode.QUIET) frame.append(text).append('\n');
+    }
+
+    void println() {
+        if (mode != Mode.QUIET) frame.append('\n');
+    }
+
+    // Shows both fighters' HP and SP. PLAIN prints the status block,
+    // ANSI rewrites the pinned lines if anything has changed.
+    void status(Character left, Character right) {
+        if (mode == Mode.QUIET) return;
+        if (mode == Mode.PLAIN) {
+            frame.append("\nCurrent Status:\n");
+            statusLine(left);
+            frame.append('\n');
+            statusLine(right);
+            frame.append('\n');
+            return;
+        }
+        if (left.name == shownLeftName && left.hp == shownLeftHp && left.sp == shownLeftSp
+                && right.name == shownRightName && right.hp == shownRightHp && right.sp == shownRightSp) {
+            return;
+        }
+        startAnsi();
+        frame.append("\0337").append(ESC).append("1;1H");
+        statusLine(left);
+        frame.append(ESC).append("K").append(ESC).append("2;1H");
+        statusLine(right);
+        frame.append(ESC).append("K\0338");
+        shownLeftName = left.name;
+        shownLeftHp = left.hp;
+        shownLeftSp = left.sp;
+        shownRightName = right.name;
+        shownRightHp = right.hp;
+        shownRightSp = right.sp;
+    }
+
+    private void statusLine(Character character) {
+        frame.append(character.name).append("'s HP: ").append(character.hp)
+            .append(" | ").append(character.name).append("'s SP: ").append(character.sp);
+    }
+
+    // Clears the screen and keeps the top two lines out of the scrolling area
+    private void startAnsi() {
+        if (ansiStarted) return;
+        ansiStarted = true;
+        frame.insert(0, ESC + "2J" + ESC + "3r" + ESC + "3;1H");
+    }
+
+    void flush() {
+        if (frame.length() == 0) return;
+        int length = encode();
+        frame.setLength(0);
+        Metrics.RenderEvent span = Metrics.ENABLED ? new Metrics.RenderEvent() : null;
+        try {
+            out.write(bytes, 0, length);
+            out.flush();
+        } catch (IOException e) {
+            // The terminal has gone away, there is nobody left to show this to
+        }
+        if (span != null) {
+            span.bytes = length;
+            span.end(Metrics.RENDER_FLUSH);
+            Metrics.RENDER_BYTES.add(length);
+        }
+    }
+
+    // Gives the scrolling region back to the terminal
+    void close() {
+        if (ansiStarted) {
+            frame.append(ESC).append("r");
+            ansiStarted = false;
+        }
+        flush();
+    }
+
+    // UTF-8 into the reusable byte buffer, so a flush allocates nothing once the buffer has grown
+    private int encode() {
+        int length = frame.length();
+        if (bytes.length < length * 3) {
+            bytes = new byte[Math.max(length * 3, bytes.length * 2)];
+        }
+        int n = 0;
+        for (int i = 0; i < length; i++) {
+            char c = frame.charAt(i);
+            if (c < 0x80) {
+                bytes[n++] = (byte) c;
+            } else if (c < 0x800) {
+                bytes[n++] = (byte) (0xc0 | c >> 6);
+                bytes[n++] = (byte) (0x80 | c & 0x3f);
+            } else if (java.lang.Character.isSurrogate(c)) {
+                bytes[n++] = '?';
+            } else {
+                bytes[n++] = (byte) (0xe0 | c >> 12);
+                bytes[n++] = (byte) (0x80 | c >> 6 & 0x3f);
+                bytes[n++] = (byte) (0x80 | c & 0x3f);
+            }
+        }
+        return n;
+    }
+}
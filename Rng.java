@@ -0,0 +1,104 @@
+// === Rng Class ===
+// The one random source for the game, simulations and tools. It is the
+// SplitMix64 generator behind java.util.SplittableRandom, written out here so
+// its state can be read back and restored for replays. One instance belongs
+// to one match or one thread; use split() to hand a child to another thread.
+final class Rng {
+    private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+    private static final Rng ROOT = new Rng(System.nanoTime() ^ System.currentTimeMillis() * GOLDEN_GAMMA);
+    private static final ThreadLocal<Rng> PER_THREAD = ThreadLocal.withInitial(Rng::splitFromRoot);
+
+    private long seed;
+    private long gamma;
+
+    public Rng(long seed) {
+        this(seed, GOLDEN_GAMMA);
+    }
+
+    Rng(long seed, long gamma) {
+        this.seed = seed;
+        this.gamma = gamma | 1L;
+    }
+
+    // A fresh generator for a new match, seeded from the shared root
+    public static Rng forMatch() {
+        return splitFromRoot();
+    }
+
+    public static Rng forMatch(long seed) {
+        return new Rng(seed);
+    }
+
+    // Each thread gets its own child of the root, so threads never contend
+    public static Rng current() {
+        return PER_THREAD.get();
+    }
+
+    private static Rng splitFromRoot() {
+        synchronized (ROOT) {
+            return ROOT.split();
+        }
+    }
+
+    public Rng split() {
+        return new Rng(nextLong(), mixGamma(nextSeed()));
+    }
+
+    long state() {
+        return seed;
+    }
+
+    long gamma() {
+        return gamma;
+    }
+
+    // Picks the stream up again from numbers read with state() and gamma()
+    void restore(long state, long gamma) {
+        this.seed = state;
+        this.gamma = gamma | 1L;
+    }
+
+    public long nextLong() {
+        return mix64(nextSeed());
+    }
+
+    // Uniform in [0, bound), same rejection scheme as SplittableRandom
+    public int nextInt(int bound) {
+        int r = mix32(nextSeed());
+        int m = bound - 1;
+        if ((bound & m) == 0) {
+            return r & m;
+        }
+        for (int u = r >>> 1; u + m - (r = u % bound) < 0; u = mix32(nextSeed()) >>> 1) {
+        }
+        return r;
+    }
+
+    public boolean chance(int percent) {
+        return nextInt(100) < percent;
+    }
+
+    private long nextSeed() {
+        return seed += gamma;
+    }
+
+    private static long mix64(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    private static int mix32(long z) {
+        z = (z ^ (z >>> 33)) * 0x62a9d9ed799705f5L;
+        return (int) (((z ^ (z >>> 28)) * 0xcb24d0a5c88c35b3L) >>> 32);
+    }
+
+    private static long mixGamma(long z) {
+        z = (z ^ (z >>> 33)) * 0xff51afd7ed558ccdL;
+        z = (z ^ (z >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        z = (z ^ (z >>> 33)) | 1L;
+        int n = Long.bitCount(z ^ (z >>> 1));
+        return (n < 24) ? z ^ 0xaaaaaaaaaaaaaaaaL : z;
+    }
+}
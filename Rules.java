@@ -0,0 +1,89 @@
+// === Rules Class ===
+// All combat numbers live here so the live game and the headless engine agree.
+final class Rules {
+    static final int BASE_ATTACK = 1;
+    static final int SECONDARY_ATTACK = 2;
+    static final int TERTIARY_ATTACK = 3;
+
+    static final Rules STANDARD = new Rules(
+        5, 25, 50,
+        new int[] { 5, 10, 15, 18, 23, 25 },
+        new int[] { 5, 10, 25, 35, 45, 50 },
+        10, 4, 50, 20, 100
+    );
+
+    final int baseDamage;
+    final int secondaryCost;
+    final int tertiaryCost;
+    final int slipPercent;      // chance that an attack does no damage
+    final int refundRoll;       // rolls at or above this give back half the SP used
+    final int bonusHpThreshold; // knocking the defender below this gives the attacker SP
+    final int bonusSp;
+    final int spCap;
+
+    // Indexed by roll, slot 0 is unused so a roll never needs adjusting
+    private final int[] secondaryDamage = new int[7];
+    private final int[] tertiaryDamage = new int[7];
+
+    Rules(int baseDamage, int secondaryCost, int tertiaryCost,
+          int[] secondaryTable, int[] tertiaryTable,
+          int slipPercent, int refundRoll, int bonusHpThreshold, int bonusSp, int spCap) {
+        if (secondaryTable.length != 6 || tertiaryTable.length != 6) {
+            throw new IllegalArgumentException("Damage tables need one entry per dice face");
+        }
+        this.baseDamage = baseDamage;
+        this.secondaryCost = secondaryCost;
+        this.tertiaryCost = tertiaryCost;
+        this.slipPercent = slipPercent;
+        this.refundRoll = refundRoll;
+        this.bonusHpThreshold = bonusHpThreshold;
+        this.bonusSp = bonusSp;
+        this.spCap = spCap;
+        System.arraycopy(secondaryTable, 0, secondaryDamage, 1, 6);
+        System.arraycopy(tertiaryTable, 0, tertiaryDamage, 1, 6);
+    }
+
+    int secondaryAttackDamage(int roll) {
+        return roll >= 1 && roll <= 6 ? secondaryDamage[roll] : 0;
+    }
+
+    int tertiaryAttackDamage(int roll) {
+        return roll >= 1 && roll <= 6 ? tertiaryDamage[roll] : 0;
+    }
+
+    int damage(int attack, int roll) {
+        switch (attack) {
+            case BASE_ATTACK: return baseDamage;
+            case SECONDARY_ATTACK: return secondaryAttackDamage(roll);
+            case TERTIARY_ATTACK: return tertiaryAttackDamage(roll);
+        }
+        return 0;
+    }
+
+    int cost(int attack) {
+        switch (attack) {
+            case SECONDARY_ATTACK: return secondaryCost;
+            case TERTIARY_ATTACK: return tertiaryCost;
+        }
+        return 0;
+    }
+
+    boolean canAfford(int attack, int sp) {
+        return sp >= cost(attack);
+    }
+
+    // FNV-1a over every number above, so files computed from one set of rules
+    // can tell they no longer match another
+    long fingerprint() {
+        long hash = 0xcbf29ce484222325L;
+        int[] numbers = {
+            baseDamage, secondaryCost, tertiaryCost, slipPercent, refundRoll, bonusHpThreshold, bonusSp, spCap
+        };
+        for (int number : numbers) hash = (hash ^ number) * 0x100000001b3L;
+        for (int roll = 1; roll <= 6; roll++) {
+            hash = (hash ^ secondaryDamage[roll]) * 0x100000001b3L;
+            hash = (hash ^ tertiaryDamage[roll]) * 0x100000001b3L;
+        }
+        return hash;
+    }
+}
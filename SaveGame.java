@@ -0,0 +1,119 @@
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.zip.CRC32;
+
+// === SaveGame Class ===
+// Everything needed to pick a session up where it stopped. Layout, big-endian:
+//   "FFSV" | version int | mode byte | screen byte | level int | story stage int
+//   RNG state long | RNG gamma long | volume float
+//   player and opponent: name (modified UTF-8) | max HP int | HP int | max SP int | SP int
+//   CRC-32 of everything before it, int
+// A file that fails any check is treated as no save at all.
+class SaveGame {
+    static final String DEFAULT_FILE = "furryfists.sav";
+    static final int MAGIC = 0x46465356; // "FFSV"
+    static final int VERSION = 1;
+
+    // Mode: NONE keeps only the settings
+    static final int NONE = 0;
+    static final int VERSUS = 1;
+    static final int LADDER = 2;
+    static final int STORY = 3;
+
+    // Screen to resume on
+    static final int IN_BATTLE = 0;
+    static final int AFTER_VICTORY = 1;
+    static final int AFTER_DEFEAT = 2;
+
+    int mode;
+    int screen;
+    int level;
+    int storyStage;
+    long rngState;
+    long rngGamma;
+    float volume;
+    String playerName = "";
+    int playerMaxHp, playerHp, playerMaxSp, playerSp;
+    String opponentName = "";
+    int opponentMaxHp, opponentHp, opponentMaxSp, opponentSp;
+
+    byte[] encode() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeByte(mode);
+            out.writeByte(screen);
+            out.writeInt(level);
+            out.writeInt(storyStage);
+            out.writeLong(rngState);
+            out.writeLong(rngGamma);
+            out.writeFloat(volume);
+            out.writeUTF(playerName);
+            out.writeInt(playerMaxHp);
+            out.writeInt(playerHp);
+            out.writeInt(playerMaxSp);
+            out.writeInt(playerSp);
+            out.writeUTF(opponentName);
+            out.writeInt(opponentMaxHp);
+            out.writeInt(opponentHp);
+            out.writeInt(opponentMaxSp);
+            out.writeInt(opponentSp);
+            CRC32 crc = new CRC32();
+            crc.update(bytes.toByteArray());
+            out.writeInt((int) crc.getValue());
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to encode save", e);
+        }
+        return bytes.toByteArray();
+    }
+
+    static SaveGame decode(byte[] data) throws IOException {
+        if (data.length < 12) throw new IOException("Truncated save");
+        CRC32 crc = new CRC32();
+        crc.update(data, 0, data.length - 4);
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(data));
+        if (in.readInt() != MAGIC) throw new IOException("Not a save file");
+        int version = in.readInt();
+        if (version != VERSION) throw new IOException("Unsupported save version " + version);
+        SaveGame save = new SaveGame();
+        save.mode = in.readUnsignedByte();
+        save.screen = in.readUnsignedByte();
+        save.level = in.readInt();
+        save.storyStage = in.readInt();
+        save.rngState = in.readLong();
+        save.rngGamma = in.readLong();
+        save.volume = in.readFloat();
+        save.playerName = in.readUTF();
+        save.playerMaxHp = in.readInt();
+        save.playerHp = in.readInt();
+        save.playerMaxSp = in.readInt();
+        save.playerSp = in.readInt();
+        save.opponentName = in.readUTF();
+        save.opponentMaxHp = in.readInt();
+        save.opponentHp = in.readInt();
+        save.opponentMaxSp = in.readInt();
+        save.opponentSp = in.readInt();
+        if (in.readInt() != (int) crc.getValue()) throw new IOException("Save is corrupt");
+        if (save.mode > STORY || save.screen > AFTER_DEFEAT) throw new IOException("Save is corrupt");
+        return save;
+    }
+
+    // The save at the path, or null when there is none or it cannot be used
+    static SaveGame load(Path path) {
+        try {
+            return decode(Files.readAllBytes(path));
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            UI.renderer().println("Ignoring save file: " + e.getMessage());
+            return null;
+        }
+    }
+}
@@ -0,0 +1,56 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+// === SaveWriter Class ===
+// Writes saves on a background thread, beside the target and moved into
+// place, so the file is always a whole save. Only the newest save waiting
+// is written; older ones it replaced are skipped.
+class SaveWriter {
+    private final Path path;
+    private final AtomicReference<byte[]> pending = new AtomicReference<>();
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(task -> {
+        Thread thread = new Thread(task, "save-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    SaveWriter(Path path) {
+        this.path = path;
+    }
+
+    void save(SaveGame save) {
+        // Encoded here, so the game can carry on changing its state straight away
+        if (pending.getAndSet(save.encode()) == null) {
+            writer.execute(this::writeLatest);
+        }
+    }
+
+    private void writeLatest() {
+        byte[] data = pending.getAndSet(null);
+        if (data == null) return;
+        try {
+            Path temp = Files.createTempFile(path.toAbsolutePath().getParent(), "save", ".tmp");
+            Files.write(temp, data);
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            // The game's renderer belongs to the game thread
+            System.err.println("Error: Unable to save: " + e.getMessage());
+        }
+    }
+
+    // Waits for the last save to reach the disk
+    void close() {
+        writer.shutdown();
+        try {
+            writer.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,49 @@
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+// === ScriptedInput Class ===
+// Plays back a list of lines as fast as the game asks for them.
+class ScriptedInput implements InputSource {
+    private final List<String> lines;
+    private final Long recordedSeed;
+    private int position;
+
+    ScriptedInput(List<String> script) {
+        List<String> playable = new ArrayList<>();
+        Long seed = null;
+        for (String line : script) {
+            if (line.startsWith(SEED_HEADER)) {
+                seed = Long.parseLong(line.substring(SEED_HEADER.length()).trim());
+            } else if (!line.startsWith("#")) {
+                playable.add(line);
+            }
+        }
+        this.lines = playable;
+        this.recordedSeed = seed;
+    }
+
+    static ScriptedInput fromFile(Path path) throws IOException {
+        return new ScriptedInput(Files.readAllLines(path, StandardCharsets.UTF_8));
+    }
+
+    // The seed the recording was made with, so a replay sees the same dice; null if none
+    Long recordedSeed() {
+        return recordedSeed;
+    }
+
+    // Starts the script again from the top, for running one script many times
+    ScriptedInput rewind() {
+        position = 0;
+        return this;
+    }
+
+    @Override
+    public String nextLine() {
+        if (position >= lines.size()) throw new InputClosedException();
+        return lines.get(position++);
+    }
+}
@@ -0,0 +1,48 @@
+import java.io.OutputStream;
+import java.nio.file.Paths;
+
+// === SoakRunner Class ===
+// Runs a recorded or hand-written input script through full game sessions,
+// back to back, with audio off and output discarded.
+// Usage: java SoakRunner SCRIPT [sessions] [seed]
+//        without a seed, the seed stored in the recording is used
+public class SoakRunner {
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.out.println("Usage: java SoakRunner SCRIPT [sessions] [seed]");
+            return;
+        }
+        ScriptedInput script = ScriptedInput.fromFile(Paths.get(args[0]));
+        int sessions = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+        Long seed = args.length > 2 ? Long.valueOf(args[2]) : script.recordedSeed();
+
+        AudioManager silent = new AudioManager(false);
+        UI.setRenderer(new Renderer(OutputStream.nullOutputStream(), Renderer.Mode.QUIET));
+        int completed = 0;
+        int ranOutOfInput = 0;
+        int failed = 0;
+        String firstFailure = null;
+
+        long start = System.nanoTime();
+        for (int i = 0; i < sessions; i++) {
+            UI.setInput(script.rewind());
+            Game game = new Game(seed != null ? Rng.forMatch(seed) : Rng.forMatch(), silent);
+            try {
+                game.start();
+                completed++;
+            } catch (InputClosedException e) {
+                ranOutOfInput++;
+            } catch (RuntimeException e) {
+                failed++;
+                if (firstFailure == null) firstFailure = e.toString();
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        System.out.printf("%d sessions in %.2f s (%.0f sessions/min)%n", sessions, seconds, sessions / seconds * 60);
+        System.out.println("Quit normally: " + completed + " | ran out of input: " + ranOutOfInput + " | failed: " + failed);
+        if (firstFailure != null) {
+            System.out.println("First failure: " + firstFailure);
+        }
+    }
+}
@@ -0,0 +1,205 @@
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+// === SpectatorFeed Class ===
+// Live battle events for any number of read-only spectators. The battle's
+// thread is the only writer: it renders each event to a line once, drops it
+// into the next slot of a fixed ring and moves the published count on. It
+// never looks at the readers, so it costs the same with one spectator or a
+// thousand. Each reader keeps its own Cursor. Every event carries the whole
+// battle state, so a reader the ring has lapped just jumps to the newest
+// event and carries on from there, with a note of how much it missed.
+class SpectatorFeed implements BattleListener {
+    static final int CAPACITY = 1024; // a power of two
+    private static final int MASK = CAPACITY - 1;
+
+    private final AtomicReferenceArray<Event> slots = new AtomicReferenceArray<>(CAPACITY);
+    private final AtomicLong published = new AtomicLong();
+    private final Runnable onPublish;
+    private Character player;
+    private int battles;
+    private int turn;
+
+    // onPublish runs on the battle's thread after every event and must not block
+    SpectatorFeed(Runnable onPublish) {
+        this.onPublish = onPublish;
+    }
+
+    // === Event Class ===
+    static final class Event {
+        final long sequence;
+        final byte[] line;
+
+        Event(long sequence, String text) {
+            this.sequence = sequence;
+            this.line = (text + "\n").getBytes(StandardCharsets.UTF_8);
+        }
+
+        String text() {
+            return new String(line, 0, line.length - 1, StandardCharsets.UTF_8);
+        }
+    }
+
+    long published() {
+        return published.get();
+    }
+
+    @Override
+    public void battleStarted(Character player, Character opponent) {
+        this.player = player;
+        battles++;
+        turn = 0;
+        StringBuilder line = new StringBuilder(96);
+        line.append("Battle ").append(battles).append(": the ").append(player.name)
+            .append(" against the ").append(opponent.name).append(" | ");
+        appendState(line, player, opponent);
+        publish(line.toString());
+    }
+
+    @Override
+    public void attackResolved(Character attacker, Character defender, TurnResult result) {
+        Character opponent = attacker == player ? defender : attacker;
+        StringBuilder line = new StringBuilder(128);
+        line.append("[").append(++turn).append("] ").append(attacker.name).append(": ")
+            .append(MatchReplay.ATTACK_NAMES[result.attack]);
+        if (result.fellBack()) line.append(" (not enough SP)");
+        if (result.roll > 0) line.append(", rolled ").append(result.roll);
+        if (result.slipped) {
+            line.append(", slipped");
+        } else {
+            line.append(", ").append(result.damage).append(" damage");
+        }
+        int gained = result.spRefund + result.spBonus;
+        if (gained > 0) line.append(", +").append(gained).append(" SP");
+        line.append(" | ");
+        appendState(line, player, opponent);
+        if (!defender.isAlive()) line.append(" | the ").append(attacker.name).append(" wins!");
+        publish(line.toString());
+    }
+
+    private static void appendState(StringBuilder line, Character player, Character opponent) {
+        line.append(player.name).append(" ").append(player.hp).append(" HP ").append(player.sp).append(" SP, ")
+            .append(opponent.name).append(" ").append(opponent.hp).append(" HP ").append(opponent.sp).append(" SP");
+    }
+
+    // Single writer: fill the slot, then publish it; readers only ever see whole events.
+    // The count is a full volatile write so onPublish can tell whether a reader went to sleep first.
+    void publish(String text) {
+        long sequence = published.get();
+        slots.lazySet((int) sequence & MASK, new Event(sequence, text));
+        published.set(sequence + 1);
+        if (onPublish != null) onPublish.run();
+    }
+
+    // A reader starting at the newest event, or at the next one when there is none yet
+    Cursor cursor() {
+        return new Cursor(Math.max(0, published.get() - 1));
+    }
+
+    // === Cursor Class ===
+    // One reader's place in the feed. Only its own thread may use it.
+    final class Cursor {
+        private long next;
+        private long skipped;
+
+        private Cursor(long next) {
+            this.next = next;
+        }
+
+        // The next event, or null when the reader has caught up
+        Event poll() {
+            long head = published.get();
+            if (next >= head) return null;
+            if (head - next > CAPACITY) {
+                // Lapped: go straight to the newest event
+                skipped += head - 1 - next;
+                next = head - 1;
+            }
+            Event event = slots.get((int) next & MASK);
+            if (event.sequence != next) {
+                // Overwritten after the count was read, so the slot holds a newer event
+                skipped += event.sequence - next;
+                next = event.sequence;
+            }
+            next++;
+            return event;
+        }
+
+        // Events passed over since the last call
+        long takeSkipped() {
+            long count = skipped;
+            skipped = 0;
+            return count;
+        }
+    }
+
+    // Benchmark: battles run into the feed with 0 to 1000 spectators reading over
+    // local sockets, first flat out and then paced at one event every 200 microseconds
+    // (far quicker than anyone plays). Reports the battle thread's CPU time per
+    // event flat out and how many lines reached the spectators each way.
+    // Usage: java SpectatorFeed [events]
+    public static void main(String[] args) throws Exception {
+        long events = args.length > 0 ? Long.parseLong(args[0]) : 500_000;
+        long paced = Math.max(1, events / 100);
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        int[] observerCounts = { 0, 1, 10, 100, 1000 };
+        run(null, events, 0, threads); // warm-up
+        run(new SpectatorFeed(null), events, 0, threads);
+        System.out.printf("no feed          %6.0f ns/event%n", (double) run(null, events, 0, threads) / events);
+        for (int observers : observerCounts) {
+            try (SpectatorServer server = new SpectatorServer(0);
+                    SpectatorServer.Drain drain = SpectatorServer.drain(server.port(), observers)) {
+                while (server.spectators() < observers) Thread.sleep(10);
+                long flatOut = run(server.feed(), events, 0, threads);
+                Thread.sleep(500);
+                long flatLines = drain.lines();
+                run(server.feed(), paced, 200_000, threads);
+                Thread.sleep(500);
+                System.out.printf("%4d spectators  flat out %4.0f ns/event, %5.1f%% delivered | paced %5.1f%% delivered%n",
+                    observers, (double) flatOut / events, percent(flatLines, events * observers),
+                    percent(drain.lines() - flatLines, paced * observers));
+            }
+        }
+    }
+
+    private static double percent(long part, long whole) {
+        return whole == 0 ? 100 : 100.0 * part / whole;
+    }
+
+    private static long run(SpectatorFeed feed, long events, long pauseNanos, ThreadMXBean threads) {
+        BattleEngine engine = new BattleEngine(Rules.STANDARD, Rng.forMatch(42));
+        CountingListener counter = new CountingListener(pauseNanos);
+        engine.addListener(feed);
+        engine.addListener(counter);
+        long start = threads.getCurrentThreadCpuTime();
+        while (counter.events < events) {
+            engine.runBattle(new Character("dog", 100, 50), new Character("cat", 100, 50),
+                AttackPolicies.GREEDY, AttackPolicies.RANDOM);
+        }
+        return threads.getCurrentThreadCpuTime() - start;
+    }
+
+    private static final class CountingListener implements BattleListener {
+        private final long pauseNanos;
+        long events;
+
+        CountingListener(long pauseNanos) {
+            this.pauseNanos = pauseNanos;
+        }
+
+        @Override
+        public void battleStarted(Character player, Character opponent) {
+            events++;
+        }
+
+        @Override
+        public void attackResolved(Character attacker, Character defender, TurnResult result) {
+            events++;
+            if (pauseNanos > 0) LockSupport.parkNanos(pauseNanos);
+        }
+    }
+}
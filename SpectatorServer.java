@@ -0,0 +1,269 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// === SpectatorServer Class ===
+// Serves a SpectatorFeed to read-only spectators on a loopback port. One
+// thread does all the fan-out: when the feed has news it walks the
+// spectators and sends each whatever its cursor has, several events to a
+// write. A spectator whose socket is full is left until it drains; if the
+// feed laps it meanwhile its cursor skips ahead, so the battle never waits.
+// Watch from a terminal with: java SpectatorServer [port]   (or nc localhost 7778)
+class SpectatorServer implements Closeable {
+    static final int DEFAULT_PORT = 7778;
+    private static final int BATCH = 32;
+    private static final int BATCHES_PER_PASS = 4; // so one quick spectator cannot hold up the rest
+
+    private final SpectatorFeed feed = new SpectatorFeed(this::wake);
+    private final Selector selector;
+    private final ServerSocketChannel server;
+    private final Thread thread;
+    private final AtomicBoolean sleeping = new AtomicBoolean();
+    private final AtomicInteger spectators = new AtomicInteger();
+
+    SpectatorServer(int port) throws IOException {
+        selector = Selector.open();
+        server = ServerSocketChannel.open();
+        server.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 1024);
+        server.configureBlocking(false);
+        server.register(selector, SelectionKey.OP_ACCEPT);
+        thread = new Thread(this::serve, "spectators");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    SpectatorFeed feed() {
+        return feed;
+    }
+
+    int port() {
+        return ((InetSocketAddress) server.socket().getLocalSocketAddress()).getPort();
+    }
+
+    int spectators() {
+        return spectators.get();
+    }
+
+    // Battle thread: a wakeup only when someone is watching and the fan-out thread is asleep in select()
+    private void wake() {
+        if (spectators.get() > 0 && sleeping.get() && sleeping.compareAndSet(true, false)) selector.wakeup();
+    }
+
+    private void serve() {
+        long seen = -1;
+        try {
+            while (selector.isOpen()) {
+                sleeping.set(true);
+                // Anything published after this check finds sleeping set and wakes us
+                if (feed.published() != seen) {
+                    selector.selectNow();
+                } else {
+                    selector.select();
+                }
+                sleeping.set(false);
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    if (!key.isValid()) continue;
+                    if (key.isAcceptable()) {
+                        accept();
+                    } else if (key.isReadable()) {
+                        ((Spectator) key.attachment()).readReady();
+                    }
+                }
+                seen = feed.published();
+                for (SelectionKey key : selector.keys()) {
+                    if (key.isValid() && key.attachment() != null) ((Spectator) key.attachment()).pump();
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            if (selector.isOpen()) System.out.println("Error: Spectator feed stopped: " + e.getMessage());
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel;
+        while ((channel = server.accept()) != null) {
+            channel.configureBlocking(false);
+            Spectator spectator = new Spectator(channel);
+            spectator.key = channel.register(selector, SelectionKey.OP_READ, spectator);
+            spectators.incrementAndGet();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        selector.close();
+        server.close();
+        try {
+            thread.join(1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // === Spectator Class ===
+    private final class Spectator {
+        private final SocketChannel channel;
+        private final SpectatorFeed.Cursor cursor = feed.cursor();
+        private final ByteBuffer[] batch = new ByteBuffer[BATCH + 1];
+        private final ByteBuffer discard = ByteBuffer.allocate(256);
+        private int offset;
+        private int count = 1;
+        private SelectionKey key;
+
+        Spectator(SocketChannel channel) {
+            this.channel = channel;
+            batch[0] = ByteBuffer.wrap("Watching Furry Fists live.\n".getBytes(StandardCharsets.UTF_8));
+        }
+
+        // Spectators have nothing to say; reading just notices when they leave
+        void readReady() {
+            int read;
+            do {
+                discard.clear();
+                try {
+                    read = channel.read(discard);
+                } catch (IOException e) {
+                    read = -1;
+                }
+            } while (read > 0);
+            if (read < 0) drop();
+        }
+
+        // Sends what the cursor has until it runs dry, the socket fills up or its turn is over
+        void pump() {
+            try {
+                for (int i = 0; i < BATCHES_PER_PASS; i++) {
+                    if (offset == count && !refill()) return;
+                    channel.write(batch, offset, count - offset);
+                    while (offset < count && !batch[offset].hasRemaining()) offset++;
+                    if (offset < count) {
+                        key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+                        return;
+                    }
+                }
+                // More to send next pass
+                selector.wakeup();
+            } catch (IOException e) {
+                drop();
+            }
+        }
+
+        private boolean refill() {
+            offset = 0;
+            count = 0;
+            SpectatorFeed.Event event;
+            while (count < BATCH && (event = cursor.poll()) != null) {
+                long missed = cursor.takeSkipped();
+                if (missed > 0) {
+                    batch[count++] = ByteBuffer.wrap(("... fell behind, skipped " + missed + " events ...\n")
+                        .getBytes(StandardCharsets.UTF_8));
+                }
+                batch[count++] = ByteBuffer.wrap(event.line);
+            }
+            if (count == 0) {
+                if ((key.interestOps() & SelectionKey.OP_WRITE) != 0) key.interestOps(SelectionKey.OP_READ);
+                return false;
+            }
+            return true;
+        }
+
+        private void drop() {
+            key.cancel();
+            spectators.decrementAndGet();
+            try {
+                channel.close();
+            } catch (IOException e) {
+                // Already gone
+            }
+        }
+    }
+
+    // === Drain Class ===
+    // Benchmark spectators: many connections read by one thread, counting lines
+    static final class Drain implements Closeable {
+        private final Selector selector = Selector.open();
+        private final Thread thread;
+        private final AtomicLong lines = new AtomicLong();
+
+        private Drain(int port, int connections) throws IOException {
+            for (int i = 0; i < connections; i++) {
+                SocketChannel channel = SocketChannel.open(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+                channel.configureBlocking(false);
+                channel.register(selector, SelectionKey.OP_READ);
+            }
+            thread = new Thread(this::run, "spectator-drain");
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        private void run() {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(64 * 1024);
+            try {
+                while (selector.isOpen()) {
+                    selector.select();
+                    Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                    while (keys.hasNext()) {
+                        SelectionKey key = keys.next();
+                        keys.remove();
+                        buffer.clear();
+                        if (((SocketChannel) key.channel()).read(buffer) < 0) {
+                            key.cancel();
+                            continue;
+                        }
+                        buffer.flip();
+                        long count = 0;
+                        while (buffer.hasRemaining()) {
+                            if (buffer.get() == '\n') count++;
+                        }
+                        lines.addAndGet(count);
+                    }
+                }
+            } catch (IOException | RuntimeException e) {
+                // Closed
+            }
+        }
+
+        long lines() {
+            return lines.get();
+        }
+
+        @Override
+        public void close() throws IOException {
+            for (SelectionKey key : selector.keys()) key.channel().close();
+            selector.close();
+        }
+    }
+
+    static Drain drain(int port, int connections) throws IOException {
+        return new Drain(port, connections);
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port)) {
+            InputStream in = socket.getInputStream();
+            byte[] buffer = new byte[4096];
+            int read;
+            while ((read = in.read(buffer)) >= 0) {
+                System.out.write(buffer, 0, read);
+                System.out.flush();
+            }
+        }
+    }
+}
@@ -0,0 +1,64 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// === StartupProbe Class ===
+// Time to first prompt: starts the game in a fresh JVM, the way a player
+// does, and times it from launch until the main menu is waiting for input.
+// Exits with status 1 when the median misses TARGET_MILLIS, so it can be
+// tracked from a script. Extra arguments are passed to the game.
+// Usage: java StartupProbe [runs] [game options...]
+public class StartupProbe {
+    static final long TARGET_MILLIS = 200;
+    private static final String PROMPT = "Enter the number of your choice: ";
+    private static final long GIVE_UP_NANOS = 30_000_000_000L;
+
+    public static void main(String[] args) throws Exception {
+        int runs = args.length > 0 ? Integer.parseInt(args[0]) : 10;
+        List<String> command = new ArrayList<>();
+        command.add(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add("Game");
+        command.add("--no-save");
+        command.addAll(Arrays.asList(args).subList(Math.min(1, args.length), args.length));
+
+        long[] millis = new long[runs];
+        for (int i = 0; i < runs; i++) {
+            millis[i] = timeToPrompt(command);
+            if (millis[i] < 0) {
+                System.out.println("The game never showed its menu: " + String.join(" ", command));
+                System.exit(2);
+            }
+        }
+        Arrays.sort(millis);
+        long median = millis[runs / 2];
+        System.out.printf("Time to first prompt over %d runs: min %d ms, median %d ms, max %d ms (target %d ms) %s%n",
+            runs, millis[0], median, millis[runs - 1], TARGET_MILLIS, median <= TARGET_MILLIS ? "OK" : "MISSED");
+        System.exit(median <= TARGET_MILLIS ? 0 : 1);
+    }
+
+    private static long timeToPrompt(List<String> command) throws IOException {
+        long start = System.nanoTime();
+        Process game = new ProcessBuilder(command).redirectErrorStream(true).start();
+        try {
+            InputStream in = game.getInputStream();
+            StringBuilder tail = new StringBuilder();
+            int b;
+            while ((b = in.read()) >= 0) {
+                tail.append((char) b);
+                if (tail.length() > PROMPT.length()) tail.deleteCharAt(0);
+                if (tail.length() == PROMPT.length() && tail.toString().equals(PROMPT)) {
+                    return (System.nanoTime() - start) / 1_000_000;
+                }
+                if (System.nanoTime() - start > GIVE_UP_NANOS) break;
+            }
+            return -1;
+        } finally {
+            game.destroyForcibly();
+        }
+    }
+}
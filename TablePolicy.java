@@ -0,0 +1,20 @@
+// === TablePolicy Class ===
+// Plays straight from the standard policy table. States it does not cover,
+// and every move before it has loaded, go to the fallback.
+class TablePolicy implements AttackPolicy {
+    private final AttackPolicy fallback;
+
+    TablePolicy(AttackPolicy fallback) {
+        this.fallback = fallback;
+    }
+
+    @Override
+    public int chooseAttack(Character self, Character foe, Rng rng) {
+        PolicyTable table = PolicyTable.standard();
+        if (table != null) {
+            int attack = table.attackFor(self.hp, self.sp, foe.hp, foe.sp);
+            if (attack != 0) return attack;
+        }
+        return fallback.chooseAttack(self, foe, rng);
+    }
+}
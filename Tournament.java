@@ -0,0 +1,262 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// === Tournament Class ===
+// Round robin between every character in Game.ALL_CHARACTERS, each playing
+// its own AI strategy. Every pairing plays one best-of-N match as a task on
+// a pool sized to the cores, and the listener hears about each match as it
+// finishes. Each match has its own Rng split off in pairing order and Elo is
+// fitted once everything is in, so a seed gives the same table no matter which
+// match happened to finish first.
+class Tournament {
+    static final String[] STRATEGY_NAMES = { "random", "greedy", "search", "perfect" };
+    static final int SEARCH_LEVEL = 5;
+    private static final double ELO_START = 1500;
+
+    interface Listener {
+        void matchFinished(MatchResult result, int finished, int total);
+    }
+
+    static class MatchResult {
+        final int first;
+        final int second;
+        int firstWins;
+        int secondWins;
+        long turns;
+
+        MatchResult(int first, int second) {
+            this.first = first;
+            this.second = second;
+        }
+
+        int games() {
+            return firstWins + secondWins;
+        }
+    }
+
+    static class Standing {
+        final String name;
+        final String strategy;
+        int matchWins;
+        int matchLosses;
+        int matchDraws;
+        int gameWins;
+        int games;
+        long turns;
+        double elo = ELO_START;
+
+        Standing(String name, String strategy) {
+            this.name = name;
+            this.strategy = strategy;
+        }
+
+        double averageTurns() {
+            return games == 0 ? 0 : (double) turns / games;
+        }
+    }
+
+    private final List<String> names;
+    private final int[] strategies;
+    private final int bestOf;
+    private final Rng rng;
+
+    Tournament(List<String> names, int[] strategies, int bestOf, Rng rng) {
+        if (names.size() != strategies.length) {
+            throw new IllegalArgumentException("Every character needs a strategy");
+        }
+        this.names = names;
+        this.strategies = strategies;
+        this.bestOf = bestOf;
+        this.rng = rng;
+    }
+
+    static AttackPolicy strategy(int index) {
+        switch (index) {
+            case 0: return AttackPolicies.RANDOM;
+            case 1: return AttackPolicies.GREEDY;
+            case 2: return AttackPolicies.forLevel(SEARCH_LEVEL);
+            case 3: return AttackPolicies.hard();
+        }
+        throw new IllegalArgumentException("Unknown strategy " + index);
+    }
+
+    // Plays every pairing and returns the standings, best first
+    List<Standing> run(Listener listener) throws InterruptedException {
+        List<MatchResult> results = new ArrayList<>();
+        for (int a = 0; a < names.size(); a++) {
+            for (int b = a + 1; b < names.size(); b++) {
+                results.add(new MatchResult(a, b));
+            }
+        }
+
+        int cores = Runtime.getRuntime().availableProcessors();
+        ExecutorService pool = Executors.newFixedThreadPool(cores, task -> {
+            Thread thread = new Thread(task, "tournament");
+            thread.setDaemon(true);
+            return thread;
+        });
+        ExecutorCompletionService<MatchResult> done = new ExecutorCompletionService<>(pool);
+        try {
+            for (MatchResult result : results) {
+                Rng matchRng = rng.split();
+                done.submit(() -> play(result, matchRng));
+            }
+            for (int finished = 1; finished <= results.size(); finished++) {
+                MatchResult result = done.take().get();
+                if (listener != null) listener.matchFinished(result, finished, results.size());
+            }
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Tournament match failed", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+        return standings(results);
+    }
+
+    // All N games are played; the first move alternates so neither side keeps the head start
+    private MatchResult play(MatchResult result, Rng matchRng) {
+        BattleEngine engine = new BattleEngine(Rules.STANDARD, matchRng);
+        AttackPolicy firstPolicy = strategy(strategies[result.first]);
+        AttackPolicy secondPolicy = strategy(strategies[result.second]);
+        Player first = new Player(names.get(result.first));
+        Opponent second = new Opponent(names.get(result.second));
+        for (int game = 0; game < bestOf; game++) {
+            first.hp = first.maxHp;
+            first.sp = first.maxSp;
+            second.hp = second.maxHp;
+            second.sp = second.maxSp;
+            if (game % 2 == 0) {
+                result.turns += engine.runBattle(first, second, firstPolicy, secondPolicy);
+            } else {
+                result.turns += engine.runBattle(second, first, secondPolicy, firstPolicy);
+            }
+            if (first.isAlive()) {
+                result.firstWins++;
+            } else {
+                result.secondWins++;
+            }
+        }
+        return result;
+    }
+
+    private List<Standing> standings(List<MatchResult> results) {
+        List<Standing> table = new ArrayList<>();
+        for (int i = 0; i < names.size(); i++) {
+            table.add(new Standing(names.get(i), STRATEGY_NAMES[strategies[i]]));
+        }
+        for (MatchResult result : results) {
+            Standing a = table.get(result.first);
+            Standing b = table.get(result.second);
+            if (result.firstWins > result.secondWins) {
+                a.matchWins++;
+                b.matchLosses++;
+            } else if (result.secondWins > result.firstWins) {
+                b.matchWins++;
+                a.matchLosses++;
+            } else {
+                a.matchDraws++;
+                b.matchDraws++;
+            }
+            a.gameWins += result.firstWins;
+            b.gameWins += result.secondWins;
+            a.games += result.games();
+            b.games += result.games();
+            a.turns += result.turns;
+            b.turns += result.turns;
+        }
+        fitElo(table, results);
+        List<Standing> sorted = new ArrayList<>(table);
+        sorted.sort((x, y) -> {
+            if (x.matchWins != y.matchWins) return y.matchWins - x.matchWins;
+            return Double.compare(y.elo, x.elo);
+        });
+        return sorted;
+    }
+
+    // Elo ratings that best explain every game played (a Bradley-Terry fit), so
+    // they do not depend on the order matches are counted in. Each pairing gets
+    // half a win each way on top, which keeps a side that never won finite.
+    private static void fitElo(List<Standing> table, List<MatchResult> results) {
+        int n = table.size();
+        double[] wins = new double[n];
+        double[][] games = new double[n][n];
+        for (MatchResult result : results) {
+            wins[result.first] += result.firstWins + 0.5;
+            wins[result.second] += result.secondWins + 0.5;
+            games[result.first][result.second] += result.games() + 1;
+            games[result.second][result.first] += result.games() + 1;
+        }
+        double[] strength = new double[n];
+        Arrays.fill(strength, 1);
+        for (int round = 0; round < 200; round++) {
+            double logSum = 0;
+            for (int i = 0; i < n; i++) {
+                double expected = 0;
+                for (int j = 0; j < n; j++) {
+                    if (games[i][j] > 0) expected += games[i][j] / (strength[i] + strength[j]);
+                }
+                strength[i] = expected > 0 ? wins[i] / expected : 1;
+                logSum += Math.log(strength[i]);
+            }
+            // Keep the average rating pinned at the starting value
+            double mean = Math.exp(logSum / n);
+            for (int i = 0; i < n; i++) strength[i] /= mean;
+        }
+        for (int i = 0; i < n; i++) {
+            table.get(i).elo = ELO_START + 400 * Math.log10(strength[i]);
+        }
+    }
+
+    // Usage: java Tournament [gamesPerMatch] [strategy|mixed] [seed]
+    public static void main(String[] args) throws InterruptedException {
+        int bestOf = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        String strategy = args.length > 1 ? args[1] : "mixed";
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : System.nanoTime();
+
+        List<String> names = Game.ALL_CHARACTERS;
+        int[] strategies = new int[names.size()];
+        for (int i = 0; i < strategies.length; i++) {
+            strategies[i] = strategy.equals("mixed") ? i % STRATEGY_NAMES.length : indexOf(strategy);
+        }
+        PolicyTable.loadDefault();
+
+        long start = System.nanoTime();
+        Tournament tournament = new Tournament(names, strategies, bestOf, Rng.forMatch(seed));
+        List<Standing> standings = tournament.run((result, finished, total) ->
+            System.out.println(describe(names, result, finished, total)));
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        System.out.println();
+        System.out.print(leaderboard(standings));
+        System.out.printf("%d games in %.2f s (seed %d)%n", (long) bestOf * names.size() * (names.size() - 1) / 2, seconds, seed);
+    }
+
+    private static int indexOf(String strategy) {
+        for (int i = 0; i < STRATEGY_NAMES.length; i++) {
+            if (STRATEGY_NAMES[i].equalsIgnoreCase(strategy)) return i;
+        }
+        throw new IllegalArgumentException("Unknown strategy: " + strategy);
+    }
+
+    static String describe(List<String> names, MatchResult result, int finished, int total) {
+        return String.format("[%2d/%d] %-7s %4d - %-4d %s", finished, total,
+            names.get(result.first), result.firstWins, result.secondWins, names.get(result.second));
+    }
+
+    static String leaderboard(List<Standing> standings) {
+        StringBuilder out = new StringBuilder();
+        out.append(String.format("%-4s %-8s %-8s %-9s %7s %7s %6s%n", "#", "name", "AI", "W-L-D", "game %", "Elo", "turns"));
+        for (int i = 0; i < standings.size(); i++) {
+            Standing s = standings.get(i);
+            out.append(String.format("%-4d %-8s %-8s %-9s %6.1f%% %7.0f %6.2f%n", i + 1, s.name, s.strategy,
+                s.matchWins + "-" + s.matchLosses + "-" + s.matchDraws,
+                s.games == 0 ? 0 : 100.0 * s.gameWins / s.games, s.elo, s.averageTurns()));
+        }
+        return out.toString();
+    }
+}
@@ -0,0 +1,19 @@
+// === TurnResult Class ===
+// Filled in by BattleEngine.resolveAttack, reused between turns so nothing is allocated.
+class TurnResult {
+    int requestedAttack;
+    int attack;     // attack actually used, base attack when SP ran short
+    int roll;       // 0 for the base attack
+    int damage;     // damage the attack rolled, before the slip check
+    boolean slipped;
+    int spRefund;
+    int spBonus;
+
+    boolean fellBack() {
+        return attack != requestedAttack;
+    }
+
+    int dealt() {
+        return slipped ? 0 : damage;
+    }
+}
@@ -0,0 +1,468 @@
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+// === WinProbabilitySolver Class ===
+// Exact win probability and expected remaining attacks for a standard battle,
+// with the player playing the best attack every turn against the opponent's
+// actual policy: random, greedy, or the hard level's policy table. The search
+// opponents in between have no model, so their levels have no odds. The
+// battle is a finite Markov chain: every attack either lowers somebody's HP
+// or spends SP, except a slipped base attack. Two slipped base attacks in a
+// row bring back the same state, and that loop is solved in closed form. So
+// one memoised pass over the states is exact.
+//
+// States are stored in one flat float table. HP and SP values are first mapped
+// to dense indices made of only the values the rules can actually produce,
+// which is far fewer than every integer from 0 to 100.
+class WinProbabilitySolver {
+    static final int NO_MODEL = -1;
+    static final int RANDOM_MODEL = 0; // level 1 in AttackPolicies
+    static final int GREEDY_MODEL = 1; // level 2
+    static final int TABLE_MODEL = 2; // HARD_LEVEL and up
+
+    private static final int ATTACKS = 3;
+    private static final AtomicReferenceArray<WinProbabilitySolver> STANDARD = new AtomicReferenceArray<>(3);
+    private static final boolean[] PREPARING = new boolean[3];
+    private static final boolean[] FAILED = new boolean[3]; // guarded by PREPARING
+
+    private final Rules rules;
+    private final int model;
+    private final PolicyTable policy; // TABLE_MODEL only
+    private final double slip;
+    private final double refundChance;
+    private final int maxHp;
+    private final int maxSp;
+    private final int[] hpIndex; // value -> dense index, -1 if unreachable
+    private final int[] spIndex;
+    private final int hpCount;
+    private final int spCount;
+    private final double[][] randomChoice = new double[8][ATTACKS + 1]; // [affordable mask][attack]
+
+    // Four floats per state, kept together so one lookup is one cache line:
+    // player to move win/turns, then opponent to move win/turns. NaN = not solved.
+    private static final int PLAYER_WIN = 0, PLAYER_TURNS = 1, OPPONENT_WIN = 2, OPPONENT_TURNS = 3;
+    private final float[] table;
+
+    // Results of the last opponentOutcomes or bestPlayerAction call, read straight after it
+    private double outWin;
+    private double outTurns;
+    private double outStay;
+
+    WinProbabilitySolver(Rules rules, int model, int maxHp, int maxSp) {
+        this(rules, model, null, maxHp, maxSp);
+    }
+
+    // The table model plays whatever the policy table says, so it needs one built from these rules
+    WinProbabilitySolver(Rules rules, int model, PolicyTable policy, int maxHp, int maxSp) {
+        if (rules.baseDamage <= 0 || rules.secondaryCost <= 0 || rules.tertiaryCost <= 0) {
+            throw new IllegalArgumentException("The solver needs a damaging base attack and SP costs above zero");
+        }
+        if (model < RANDOM_MODEL || model > TABLE_MODEL || model == TABLE_MODEL && policy == null) {
+            throw new IllegalArgumentException("No opponent model " + model);
+        }
+        this.rules = rules;
+        this.model = model;
+        this.policy = policy;
+        this.slip = rules.slipPercent / 100.0;
+        this.refundChance = Math.max(0, Math.min(6, 7 - rules.refundRoll)) / 6.0;
+        this.maxHp = maxHp;
+        this.maxSp = Math.max(maxSp, rules.spCap);
+        hpIndex = reachableHp(rules, maxHp);
+        spIndex = reachableSp(rules, maxSp, this.maxSp);
+        hpCount = count(hpIndex);
+        spCount = count(spIndex);
+        buildRandomChoice();
+
+        table = new float[hpCount * spCount * hpCount * spCount * 4];
+        Arrays.fill(table, Float.NaN);
+    }
+
+    // Matches AttackPolicies.forLevel
+    static int modelForLevel(int level) {
+        if (level <= 1) return RANDOM_MODEL;
+        if (level == 2) return GREEDY_MODEL;
+        if (level >= AttackPolicies.HARD_LEVEL) return TABLE_MODEL;
+        return NO_MODEL;
+    }
+
+    // False for the hard level too once its policy table could not be built,
+    // and for any level whose background solve died
+    static boolean hasModel(int level) {
+        int model = modelForLevel(level);
+        if (model == NO_MODEL || model == TABLE_MODEL && PolicyTable.failed()) return false;
+        synchronized (PREPARING) {
+            return !FAILED[model];
+        }
+    }
+
+    // Shared, fully solved table for a normal 100 HP / 100 SP battle at this level.
+    // The first call does the solve, which takes a second or two. The hard
+    // level has to wait for the standard policy table to be mapped.
+    static synchronized WinProbabilitySolver forLevel(int level) {
+        int model = modelForLevel(level);
+        if (STANDARD.get(model) == null) {
+            WinProbabilitySolver solver = new WinProbabilitySolver(Rules.STANDARD, model,
+                model == TABLE_MODEL ? PolicyTable.standard() : null, 100, 100);
+            solver.solveAll();
+            STANDARD.set(model, solver);
+        }
+        return STANDARD.get(model);
+    }
+
+    // Starts solving this level's table in the background if nobody has yet.
+    // For the hard level that only happens once the policy table is in, until
+    // then every call just asks for it again. A solve that dies, say out of
+    // stack or heap, leaves the level without a model rather than pending.
+    static void prepare(int level) {
+        if (!hasModel(level)) return;
+        int model = modelForLevel(level);
+        if (model == TABLE_MODEL && PolicyTable.standard() == null) {
+            PolicyTable.loadDefault();
+            if (PolicyTable.standard() == null) return;
+        }
+        synchronized (PREPARING) {
+            if (PREPARING[model] || STANDARD.get(model) != null) return;
+            PREPARING[model] = true;
+        }
+        // The solve recurses one frame pair per attack of the longest line of play
+        Thread thread = new Thread(null, () -> {
+            boolean solved = false;
+            try {
+                forLevel(level);
+                solved = true;
+            } finally {
+                synchronized (PREPARING) {
+                    PREPARING[model] = false;
+                    FAILED[model] = !solved;
+                }
+            }
+        }, "win-chance-solver", 16L << 20);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    // The solved table for this level, or null while it is still being worked out.
+    // Every state of a normal battle is already solved, so lookups only read.
+    static WinProbabilitySolver ifReady(int level) {
+        return hasModel(level) ? STANDARD.get(modelForLevel(level)) : null;
+    }
+
+    boolean covers(int playerHp, int playerSp, int opponentHp, int opponentSp) {
+        return inHp(playerHp) && inSp(playerSp) && inHp(opponentHp) && inSp(opponentSp);
+    }
+
+    // Chance the player wins from here, NaN outside the solved range
+    double winProbability(int playerHp, int playerSp, int opponentHp, int opponentSp, boolean playerToMove) {
+        if (opponentHp <= 0) return 1;
+        if (playerHp <= 0) return 0;
+        if (!covers(playerHp, playerSp, opponentHp, opponentSp)) return Double.NaN;
+        return table[solvePlayer(playerHp, playerSp, opponentHp, opponentSp) + (playerToMove ? PLAYER_WIN : OPPONENT_WIN)];
+    }
+
+    // Expected attacks (both sides) until someone is knocked out
+    double expectedTurns(int playerHp, int playerSp, int opponentHp, int opponentSp, boolean playerToMove) {
+        if (playerHp <= 0 || opponentHp <= 0) return 0;
+        if (!covers(playerHp, playerSp, opponentHp, opponentSp)) return Double.NaN;
+        return table[solvePlayer(playerHp, playerSp, opponentHp, opponentSp) + (playerToMove ? PLAYER_TURNS : OPPONENT_TURNS)];
+    }
+
+    // The attack the player should make, 0 outside the solved range
+    int bestAttack(int playerHp, int playerSp, int opponentHp, int opponentSp) {
+        if (playerHp <= 0 || opponentHp <= 0 || !covers(playerHp, playerSp, opponentHp, opponentSp)) return 0;
+        solvePlayer(playerHp, playerSp, opponentHp, opponentSp);
+        opponentOutcomes(playerHp, playerSp, opponentHp, opponentSp);
+        return bestPlayerAction(playerHp, playerSp, opponentHp, opponentSp, outWin, outTurns, outStay);
+    }
+
+    // Solves every state reachable from the usual start, returns how many states that was
+    int solveAll() {
+        solvePlayer(maxHp, Math.min(maxSp, 100), maxHp, Math.min(maxSp, 100));
+        int solved = 0;
+        for (int i = 0; i < table.length; i += 4) {
+            if (!Float.isNaN(table[i])) solved += 2;
+        }
+        return solved;
+    }
+
+    private int index(int playerHp, int playerSp, int opponentHp, int opponentSp) {
+        return (((hpIndex[playerHp] * spCount + spIndex[playerSp]) * hpCount + hpIndex[opponentHp]) * spCount
+            + spIndex[opponentSp]) * 4;
+    }
+
+    // Solves both sides to move at these numbers: the opponent's value is its
+    // own outcomes plus the chance of handing the same state back to the player
+    private int solvePlayer(int ph, int ps, int oh, int os) {
+        int i = index(ph, ps, oh, os);
+        if (Float.isNaN(table[i])) {
+            opponentOutcomes(ph, ps, oh, os);
+            double loopWin = outWin;
+            double loopTurns = outTurns;
+            double loopStay = outStay;
+            bestPlayerAction(ph, ps, oh, os, loopWin, loopTurns, loopStay);
+            table[i + PLAYER_WIN] = (float) outWin;
+            table[i + PLAYER_TURNS] = (float) outTurns;
+            table[i + OPPONENT_WIN] = (float) (loopWin + loopStay * outWin);
+            table[i + OPPONENT_TURNS] = (float) (1 + loopTurns + loopStay * outTurns);
+        }
+        return i;
+    }
+
+    private int solveOpponent(int ph, int ps, int oh, int os) {
+        return solvePlayer(ph, ps, oh, os);
+    }
+
+    // Scores each affordable attack and returns the best, leaving its win chance
+    // and expected turns in outWin/outTurns. The loop arguments are the opponent's
+    // outcomes at the same numbers, needed because a slipped base attack hands the
+    // same state over and the opponent's own base slip can hand it straight back.
+    private int bestPlayerAction(int ph, int ps, int oh, int os, double loopWin, double loopTurns, double loopStay) {
+        double bestWin = -1;
+        double bestTurns = 0;
+        int best = Rules.BASE_ATTACK;
+        for (int attack = Rules.BASE_ATTACK; attack <= Rules.TERTIARY_ATTACK; attack++) {
+            if (!rules.canAfford(attack, ps)) continue;
+            double win;
+            double turns;
+            if (attack == Rules.BASE_ATTACK) {
+                double hitWin;
+                double hitTurns;
+                int hitHp = Math.max(0, oh - rules.baseDamage);
+                if (hitHp == 0) {
+                    hitWin = 1;
+                    hitTurns = 0;
+                } else {
+                    int j = solveOpponent(ph, bonus(oh, hitHp, ps), hitHp, os);
+                    hitWin = table[j + OPPONENT_WIN];
+                    hitTurns = table[j + OPPONENT_TURNS];
+                }
+                double stay = slip * loopStay;
+                win = ((1 - slip) * hitWin + slip * loopWin) / (1 - stay);
+                turns = (1 + (1 - slip) * hitTurns + slip * (1 + loopTurns)) / (1 - stay);
+            } else {
+                win = 0;
+                turns = 1;
+                int cost = rules.cost(attack);
+                // A slip only depends on whether the roll earned the refund
+                int j = solveOpponent(ph, ps - cost, oh, os);
+                win += slip * (1 - refundChance) * table[j + OPPONENT_WIN];
+                turns += slip * (1 - refundChance) * table[j + OPPONENT_TURNS];
+                j = solveOpponent(ph, ps - cost + cost / 2, oh, os);
+                win += slip * refundChance * table[j + OPPONENT_WIN];
+                turns += slip * refundChance * table[j + OPPONENT_TURNS];
+                for (int roll = 1; roll <= 6; roll++) {
+                    int sp = ps - cost + (roll >= rules.refundRoll ? cost / 2 : 0);
+                    int hitHp = Math.max(0, oh - rules.damage(attack, roll));
+                    if (hitHp == 0) {
+                        win += (1 - slip) / 6;
+                    } else {
+                        j = solveOpponent(ph, bonus(oh, hitHp, sp), hitHp, os);
+                        win += (1 - slip) / 6 * table[j + OPPONENT_WIN];
+                        turns += (1 - slip) / 6 * table[j + OPPONENT_TURNS];
+                    }
+                }
+            }
+            if (win > bestWin + 1e-12 || Math.abs(win - bestWin) <= 1e-12 && turns < bestTurns) {
+                bestWin = win;
+                bestTurns = turns;
+                best = attack;
+            }
+        }
+        outWin = bestWin;
+        outTurns = bestTurns;
+        return best;
+    }
+
+    // The opponent's move at these numbers, leaving out the slipped base attack that
+    // repeats the state. Leaves the summed win chance and turns in outWin/outTurns
+    // and the chance of repeating the state in outStay.
+    private void opponentOutcomes(int ph, int ps, int oh, int os) {
+        double win = 0;
+        double turns = 0;
+        double stay = 0;
+        for (int attack = Rules.BASE_ATTACK; attack <= Rules.TERTIARY_ATTACK; attack++) {
+            double chance = opponentChoice(ph, ps, oh, os, attack);
+            if (chance == 0) continue;
+            if (attack == Rules.BASE_ATTACK) {
+                stay += chance * slip;
+                int hitHp = Math.max(0, ph - rules.baseDamage);
+                if (hitHp > 0) {
+                    int j = solvePlayer(hitHp, ps, oh, bonus(ph, hitHp, os));
+                    win += chance * (1 - slip) * table[j + PLAYER_WIN];
+                    turns += chance * (1 - slip) * table[j + PLAYER_TURNS];
+                }
+                continue;
+            }
+            int cost = rules.cost(attack);
+            int j = solvePlayer(ph, ps, oh, os - cost);
+            win += chance * slip * (1 - refundChance) * table[j + PLAYER_WIN];
+            turns += chance * slip * (1 - refundChance) * table[j + PLAYER_TURNS];
+            j = solvePlayer(ph, ps, oh, os - cost + cost / 2);
+            win += chance * slip * refundChance * table[j + PLAYER_WIN];
+            turns += chance * slip * refundChance * table[j + PLAYER_TURNS];
+            for (int roll = 1; roll <= 6; roll++) {
+                int sp = os - cost + (roll >= rules.refundRoll ? cost / 2 : 0);
+                int hitHp = Math.max(0, ph - rules.damage(attack, roll));
+                if (hitHp > 0) {
+                    j = solvePlayer(hitHp, ps, oh, bonus(ph, hitHp, sp));
+                    win += chance * (1 - slip) / 6 * table[j + PLAYER_WIN];
+                    turns += chance * (1 - slip) / 6 * table[j + PLAYER_TURNS];
+                }
+            }
+        }
+        outWin = win;
+        outTurns = turns;
+        outStay = stay;
+    }
+
+    // The attacker's SP after a hit, with the below-threshold bonus applied
+    private int bonus(int hpBefore, int hpAfter, int sp) {
+        if (hpBefore >= rules.bonusHpThreshold && hpAfter < rules.bonusHpThreshold && sp < rules.spCap) {
+            return sp + Math.min(rules.bonusSp, rules.spCap - sp);
+        }
+        return sp;
+    }
+
+    private double opponentChoice(int ph, int ps, int oh, int sp, int attack) {
+        if (model == TABLE_MODEL) {
+            int chosen = policy.attackFor(oh, sp, ph, ps);
+            // The table covers every state a standard battle reaches, greedy stands in for any other
+            if (chosen != 0) return chosen == attack ? 1 : 0;
+        }
+        if (model != RANDOM_MODEL) {
+            for (int a = Rules.TERTIARY_ATTACK; a >= Rules.BASE_ATTACK; a--) {
+                if (rules.canAfford(a, sp)) return a == attack ? 1 : 0;
+            }
+            return 0;
+        }
+        int mask = 0;
+        for (int a = Rules.BASE_ATTACK; a <= Rules.TERTIARY_ATTACK; a++) {
+            if (rules.canAfford(a, sp)) mask |= 1 << (a - 1);
+        }
+        return randomChoice[mask][attack];
+    }
+
+    // AttackPolicies.RANDOM swaps each slot with a random slot, which is not a uniform
+    // shuffle, so the exact odds come from walking all 27 swap sequences
+    private void buildRandomChoice() {
+        for (int mask = 1; mask < 8; mask++) {
+            for (int s0 = 0; s0 < 3; s0++) {
+                for (int s1 = 0; s1 < 3; s1++) {
+                    for (int s2 = 0; s2 < 3; s2++) {
+                        int[] attacks = { 1, 2, 3 };
+                        int[] swaps = { s0, s1, s2 };
+                        for (int i = 0; i < 3; i++) {
+                            int temp = attacks[i];
+                            attacks[i] = attacks[swaps[i]];
+                            attacks[swaps[i]] = temp;
+                        }
+                        for (int attack : attacks) {
+                            if ((mask & 1 << (attack - 1)) != 0) {
+                                randomChoice[mask][attack] += 1.0 / 27;
+                                break;
+                            }
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private boolean inHp(int hp) {
+        return hp > 0 && hp <= maxHp && hpIndex[hp] >= 0;
+    }
+
+    private boolean inSp(int sp) {
+        return sp >= 0 && sp <= maxSp && spIndex[sp] >= 0;
+    }
+
+    // HP values that starting HP minus any run of hits can land on
+    static int[] reachableHp(Rules rules, int maxHp) {
+        boolean[] reachable = new boolean[maxHp + 1];
+        reachable[maxHp] = true;
+        int[] damages = new int[13];
+        damages[0] = rules.baseDamage;
+        for (int roll = 1; roll <= 6; roll++) {
+            damages[roll] = rules.secondaryAttackDamage(roll);
+            damages[6 + roll] = rules.tertiaryAttackDamage(roll);
+        }
+        for (int hp = maxHp; hp > 0; hp--) {
+            if (!reachable[hp]) continue;
+            for (int damage : damages) {
+                if (damage > 0 && hp - damage > 0) reachable[hp - damage] = true;
+            }
+        }
+        return toIndex(reachable, 1);
+    }
+
+    // SP values reachable from the starting SP by paying and refunds, with the
+    // bonus at most once since HP only drops below the threshold once
+    static int[] reachableSp(Rules rules, int startSp, int maxSp) {
+        boolean[][] reachable = new boolean[2][maxSp + 1]; // [bonus taken][sp]
+        reachable[0][startSp] = true;
+        for (int taken = 0; taken < 2; taken++) {
+            for (int sp = maxSp; sp >= 0; sp--) {
+                if (!reachable[taken][sp]) continue;
+                int[] paid = {
+                    sp - rules.secondaryCost, sp - rules.secondaryCost + rules.secondaryCost / 2,
+                    sp - rules.tertiaryCost, sp - rules.tertiaryCost + rules.tertiaryCost / 2
+                };
+                for (int value : paid) {
+                    if (value >= 0) reachable[taken][value] = true;
+                }
+                if (taken == 0 && sp < rules.spCap) {
+                    reachable[1][sp + Math.min(rules.bonusSp, rules.spCap - sp)] = true;
+                }
+            }
+        }
+        boolean[] any = new boolean[maxSp + 1];
+        for (int sp = 0; sp <= maxSp; sp++) any[sp] = reachable[0][sp] || reachable[1][sp];
+        return toIndex(any, 0);
+    }
+
+    static int[] toIndex(boolean[] reachable, int from) {
+        int[] index = new int[reachable.length];
+        Arrays.fill(index, -1);
+        int next = 0;
+        for (int value = from; value < reachable.length; value++) {
+            if (reachable[value]) index[value] = next++;
+        }
+        return index;
+    }
+
+    static int count(int[] index) {
+        int count = 0;
+        for (int value : index) {
+            if (value >= 0) count++;
+        }
+        return count;
+    }
+
+    // Usage: java WinProbabilitySolver [level] [playerHp playerSp opponentHp opponentSp]
+    public static void main(String[] args) throws IOException {
+        int level = args.length > 0 ? Integer.parseInt(args[0]) : 1;
+        int[] state = { 100, 100, 100, 100 };
+        for (int i = 0; i < 4 && i + 1 < args.length; i++) state[i] = Integer.parseInt(args[i + 1]);
+        int model = modelForLevel(level);
+        if (model == NO_MODEL) {
+            System.out.println("Level " + level + " plays a depth-limited search, which has no exact model");
+            return;
+        }
+        PolicyTable table = model == TABLE_MODEL
+            ? PolicyTable.open(Paths.get(PolicyTable.DEFAULT_FILE), Rules.STANDARD) : null;
+
+        long start = System.nanoTime();
+        WinProbabilitySolver solver = new WinProbabilitySolver(Rules.STANDARD, model, table, 100, 100);
+        int solved = solver.solveAll();
+        double millis = (System.nanoTime() - start) / 1e6;
+
+        System.out.printf("Level %d, %d states solved in %.0f ms (%d HP x %d SP values)%n",
+            level, solved, millis, solver.hpCount, solver.spCount);
+        System.out.printf("From %d/%d vs %d/%d: win %.4f%%, %.2f attacks expected, best attack %d%n",
+            state[0], state[1], state[2], state[3],
+            solver.winProbability(state[0], state[1], state[2], state[3], true) * 100,
+            solver.expectedTurns(state[0], state[1], state[2], state[3], true),
+            solver.bestAttack(state[0], state[1], state[2], state[3]));
+    }
+}